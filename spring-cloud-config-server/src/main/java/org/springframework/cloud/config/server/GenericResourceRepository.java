@@ -16,22 +16,31 @@
 
 package org.springframework.cloud.config.server;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import org.springframework.cloud.config.server.config.ConfigServerProperties;
 import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
 import org.springframework.cloud.config.server.resource.NoSuchResourceException;
 import org.springframework.cloud.config.server.resource.ResourceRepository;
 import org.springframework.cloud.config.server.support.PathUtils;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
@@ -48,6 +57,12 @@ public class GenericResourceRepository implements ResourceRepository, ResourceLo
 
 	private ConfigServerProperties properties;
 
+	private int cacheSize;
+
+	private long cacheMaxBytes = Long.MAX_VALUE;
+
+	private ResolvedCache resolved;
+
 	public GenericResourceRepository(SearchPathLocator service) {
 		this.service = service;
 	}
@@ -55,6 +70,37 @@ public class GenericResourceRepository implements ResourceRepository, ResourceLo
 	public GenericResourceRepository(SearchPathLocator service, ConfigServerProperties properties) {
 		this(service);
 		this.properties = properties;
+		if (properties != null && properties.getResourceCache().isEnabled()) {
+			setCacheMaxBytes(properties.getResourceCache().getMaxBytes().toBytes());
+			setCacheSize(properties.getResourceCache().getMaxSize());
+		}
+	}
+
+	/**
+	 * Sets the maximum number of located files to cache. Files are cached per
+	 * application, profile, label, path and locations, and only as long as the locator
+	 * reports the same version for them.
+	 * @param cacheSize the maximum number of cached files, or 0 to disable the cache
+	 * @since 4.3.0
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "cacheSize must not be negative");
+		this.cacheSize = cacheSize;
+		this.resolved = (cacheSize > 0) ? new ResolvedCache(cacheSize, this.cacheMaxBytes) : null;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of file content to cache. Files of locators that
+	 * change their files (see {@link SearchPathLocator#changesFiles()}) are cached with
+	 * their content, so the least recently used ones are evicted once their total size
+	 * exceeds this limit, and larger files are not cached at all.
+	 * @param cacheMaxBytes the maximum number of cached bytes
+	 * @since 4.3.0
+	 */
+	public void setCacheMaxBytes(long cacheMaxBytes) {
+		Assert.isTrue(cacheMaxBytes >= 0, "cacheMaxBytes must not be negative");
+		this.cacheMaxBytes = cacheMaxBytes;
+		setCacheSize(this.cacheSize);
 	}
 
 	@Override
@@ -63,36 +109,59 @@ public class GenericResourceRepository implements ResourceRepository, ResourceLo
 	}
 
 	@Override
-	public synchronized Resource findOne(String application, String profile, String label, String path) {
+	public Resource findOne(String application, String profile, String label, String path) {
 
 		if (StringUtils.hasText(path)) {
-			String[] locations = this.service.getLocations(application, profile, label).getLocations();
-			if (!ObjectUtils.isEmpty(properties) && properties.isReverseLocationOrder()) {
-				Collections.reverse(Arrays.asList(locations));
-			}
-			ArrayList<Resource> locationResources = new ArrayList<>();
-			for (String location : locations) {
-				if (!PathUtils.isInvalidEncodedLocation(location)) {
-					locationResources.add(this.resourceLoader.getResource(location.replaceFirst("optional:", "")));
-				}
+			// the files are read before the locator may check out another label
+			return this.service.withLocations(application, profile, label,
+					locations -> findOne(locations, application, profile, label, path));
+		}
+		throw new NoSuchResourceException("Not found: " + path);
+	}
+
+	private Resource findOne(Locations locations, String application, String profile, String label, String path) {
+		ResolvedCache resolved = this.resolved;
+		if (resolved == null || locations.getVersion() == null) {
+			return findOne(locations.getLocations(), profile, path);
+		}
+		Key key = new Key(application, profile, label, path, locations.getLocations());
+		Entry entry = resolved.get(key);
+		if (entry != null && entry.version.equals(locations.getVersion())) {
+			return entry.resource;
+		}
+		Resource resource = findOne(locations.getLocations(), profile, path);
+		resolved.put(key, new Entry(locations.getVersion(), resource));
+		return resource;
+	}
+
+	private Resource findOne(String[] locations, String profile, String path) {
+		if (!ObjectUtils.isEmpty(properties) && properties.isReverseLocationOrder()) {
+			locations = locations.clone();
+			Collections.reverse(Arrays.asList(locations));
+		}
+		ArrayList<Resource> locationResources = new ArrayList<>();
+		for (String location : locations) {
+			if (!PathUtils.isInvalidEncodedLocation(location)) {
+				locationResources.add(this.resourceLoader.getResource(location.replaceFirst("optional:", "")));
 			}
+		}
 
-			try {
-				for (Resource location : locationResources) {
-					for (String local : getProfilePaths(profile, path)) {
-						if (!PathUtils.isInvalidPath(local) && !PathUtils.isInvalidEncodedPath(local)) {
-							Resource file = location.createRelative(local);
-							if (file.exists() && file.isReadable()
-									&& PathUtils.checkResource(file, location, locationResources)) {
-								return file;
-							}
+		try {
+			for (Resource location : locationResources) {
+				for (String local : getProfilePaths(profile, path)) {
+					if (!PathUtils.isInvalidPath(local) && !PathUtils.isInvalidEncodedPath(local)) {
+						Resource file = location.createRelative(local);
+						if (file.exists() && file.isReadable()
+								&& PathUtils.checkResource(file, location, locationResources)) {
+							return (file.isFile() && this.service.changesFiles()) ? new FileContentResource(file)
+									: file;
 						}
 					}
 				}
 			}
-			catch (IOException e) {
-				throw new NoSuchResourceException("Error : " + path + ". (" + e.getMessage() + ")");
-			}
+		}
+		catch (IOException e) {
+			throw new NoSuchResourceException("Error : " + path + ". (" + e.getMessage() + ")");
 		}
 		throw new NoSuchResourceException("Not found: " + path);
 	}
@@ -120,4 +189,168 @@ public class GenericResourceRepository implements ResourceRepository, ResourceLo
 		return paths;
 	}
 
+	private static final class Key {
+
+		private final String application;
+
+		private final String profile;
+
+		private final String label;
+
+		private final String path;
+
+		private final String[] locations;
+
+		private Key(String application, String profile, String label, String path, String[] locations) {
+			this.application = application;
+			this.profile = profile;
+			this.label = label;
+			this.path = path;
+			this.locations = locations.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key other = (Key) o;
+			return Objects.equals(this.application, other.application) && Objects.equals(this.profile, other.profile)
+					&& Objects.equals(this.label, other.label) && Objects.equals(this.path, other.path)
+					&& Arrays.equals(this.locations, other.locations);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.application, this.profile, this.label, this.path, Arrays.hashCode(this.locations));
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final String version;
+
+		private final Resource resource;
+
+		private Entry(String version, Resource resource) {
+			this.version = version;
+			this.resource = resource;
+		}
+
+		private long size() {
+			return (this.resource instanceof FileContentResource content) ? content.contentLength() : 0;
+		}
+
+	}
+
+	/**
+	 * The least recently used located files, bounded by their number and by the size of
+	 * the content they hold.
+	 */
+	private static final class ResolvedCache {
+
+		private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final int maxSize;
+
+		private final long maxBytes;
+
+		private long bytes;
+
+		private ResolvedCache(int maxSize, long maxBytes) {
+			this.maxSize = maxSize;
+			this.maxBytes = maxBytes;
+		}
+
+		synchronized Entry get(Key key) {
+			return this.entries.get(key);
+		}
+
+		synchronized void put(Key key, Entry entry) {
+			Entry previous = (entry.size() <= this.maxBytes) ? this.entries.put(key, entry) : this.entries.remove(key);
+			if (previous != null) {
+				this.bytes -= previous.size();
+			}
+			if (entry.size() > this.maxBytes) {
+				return;
+			}
+			this.bytes += entry.size();
+			// the new entry is the most recently used, so it is the last to be evicted
+			Iterator<Entry> eldest = this.entries.values().iterator();
+			while (this.entries.size() > this.maxSize || this.bytes > this.maxBytes) {
+				this.bytes -= eldest.next().size();
+				eldest.remove();
+			}
+		}
+
+	}
+
+	/**
+	 * The content of a file of a locator that changes its files, read while they could
+	 * not change, that otherwise describes the file itself.
+	 */
+	private static final class FileContentResource extends ByteArrayResource {
+
+		private final Resource file;
+
+		private final long lastModified;
+
+		private FileContentResource(Resource file) throws IOException {
+			super(file.getContentAsByteArray(), file.getDescription());
+			this.file = file;
+			this.lastModified = file.lastModified();
+		}
+
+		@Override
+		public URL getURL() throws IOException {
+			return this.file.getURL();
+		}
+
+		@Override
+		public URI getURI() throws IOException {
+			return this.file.getURI();
+		}
+
+		@Override
+		public File getFile() throws IOException {
+			return this.file.getFile();
+		}
+
+		@Override
+		public long lastModified() {
+			return this.lastModified;
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.file.createRelative(relativePath);
+		}
+
+		@Override
+		public String getFilename() {
+			return this.file.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return this.file.getDescription();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof FileContentResource that && this.file.equals(that.file)
+					&& Arrays.equals(getByteArray(), that.getByteArray())));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.file.hashCode();
+		}
+
+	}
+
 }
@@ -17,10 +17,14 @@
 package org.springframework.cloud.config.server.config;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.micrometer.observation.ObservationRegistry;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -45,11 +49,12 @@ public class CompositeConfiguration {
 	@ConditionalOnBean(SearchPathLocator.class)
 	public SearchPathCompositeEnvironmentRepository searchPathCompositeEnvironmentRepository(
 			@Autowired(required = false) List<EnvironmentRepository> environmentRepos,
-			ConfigServerProperties properties, ObjectProvider<ObservationRegistry> observationRegistry) {
+			ConfigServerProperties properties, ObjectProvider<ObservationRegistry> observationRegistry,
+			BeanFactory beanFactory) {
 		environmentRepos = environmentRepos != null ? environmentRepos : new ArrayList<>();
-		return new SearchPathCompositeEnvironmentRepository(environmentRepos,
+		return configure(new SearchPathCompositeEnvironmentRepository(environmentRepos,
 				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
-				properties.isFailOnCompositeError());
+				properties.isFailOnCompositeError()), environmentRepos, properties, beanFactory);
 	}
 
 	@Bean
@@ -57,11 +62,40 @@ public class CompositeConfiguration {
 	@ConditionalOnMissingBean(SearchPathLocator.class)
 	public CompositeEnvironmentRepository compositeEnvironmentRepository(
 			@Autowired(required = false) List<EnvironmentRepository> environmentRepos,
-			ConfigServerProperties properties, ObjectProvider<ObservationRegistry> observationRegistry) {
+			ConfigServerProperties properties, ObjectProvider<ObservationRegistry> observationRegistry,
+			BeanFactory beanFactory) {
 		environmentRepos = environmentRepos != null ? environmentRepos : new ArrayList<>();
-		return new CompositeEnvironmentRepository(environmentRepos,
+		return configure(new CompositeEnvironmentRepository(environmentRepos,
 				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
-				properties.isFailOnCompositeError());
+				properties.isFailOnCompositeError()), environmentRepos, properties, beanFactory);
+	}
+
+	static <T extends CompositeEnvironmentRepository> T configure(T repository,
+			List<EnvironmentRepository> environmentRepos, ConfigServerProperties properties, BeanFactory beanFactory) {
+		ConfigServerProperties.ParallelComposite parallel = properties.getParallelComposite();
+		if (parallel.isEnabled() && environmentRepos.size() > 1) {
+			repository.setThreads((parallel.getThreads() > 0) ? parallel.getThreads() : environmentRepos.size());
+			repository.setTimeout(parallel.getTimeout());
+			parallel.getTimeouts()
+				.forEach((name, timeout) -> repository
+					.setTimeout(beanFactory.getBean(name, EnvironmentRepository.class), timeout));
+		}
+		ConfigServerProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+		if (circuitBreaker.isEnabled() && !environmentRepos.isEmpty()) {
+			Map<EnvironmentRepository, String> names = getBeanNames(beanFactory);
+			repository.enableCircuitBreakers(circuitBreaker.getFailureThreshold(), circuitBreaker.getProbeInterval(),
+					circuitBreaker.getMaxSize(), names::get);
+		}
+		return repository;
+	}
+
+	private static Map<EnvironmentRepository, String> getBeanNames(BeanFactory beanFactory) {
+		Map<EnvironmentRepository, String> names = new IdentityHashMap<>();
+		if (beanFactory instanceof ListableBeanFactory listableBeanFactory) {
+			listableBeanFactory.getBeansOfType(EnvironmentRepository.class, true, false)
+				.forEach((name, repository) -> names.put(repository, name));
+		}
+		return names;
 	}
 
 }
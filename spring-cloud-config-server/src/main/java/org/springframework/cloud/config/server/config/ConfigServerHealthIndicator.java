@@ -18,6 +18,7 @@ package org.springframework.cloud.config.server.config;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,6 +35,7 @@ import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.CircuitBreakerEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
 import org.springframework.util.CollectionUtils;
 
@@ -51,6 +53,8 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 
 	private String downHealthStatus = Status.DOWN.getCode();
 
+	private List<CircuitBreakerEnvironmentRepository> circuitBreakers = Collections.emptyList();
+
 	// autowired required or boot constructor binding produces an error
 	@Autowired
 	public ConfigServerHealthIndicator(EnvironmentRepository environmentRepository) {
@@ -104,9 +108,29 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 			}
 		}
 		builder.withDetail("repositories", details);
+		if (!this.circuitBreakers.isEmpty()) {
+			Map<String, Object> circuitBreakers = new LinkedHashMap<>();
+			for (CircuitBreakerEnvironmentRepository circuitBreaker : this.circuitBreakers) {
+				Map<String, Object> detail = new LinkedHashMap<>();
+				detail.put("open", circuitBreaker.isOpen());
+				detail.put("staleCount", circuitBreaker.getStaleCount());
+				detail.put("rejectedCount", circuitBreaker.getRejectedCount());
+				circuitBreakers.put(circuitBreaker.getName(), detail);
+			}
+			builder.withDetail("circuitBreakers", circuitBreakers);
+		}
 
 	}
 
+	/**
+	 * Reports the state of the given circuit breakers in the health details.
+	 * @param circuitBreakers the circuit breakers of the composite environment repository
+	 * @since 4.3.0
+	 */
+	public void reportCircuitBreakers(List<CircuitBreakerEnvironmentRepository> circuitBreakers) {
+		this.circuitBreakers = circuitBreakers;
+	}
+
 	public Map<String, Repository> getRepositories() {
 		return this.repositories;
 	}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.cloud.config.server.environment.CircuitBreakerEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.CompositeEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.EnvironmentCache;
+import org.springframework.cloud.config.server.environment.JGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.RequestCoalescer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers Micrometer meters for the caches and background tasks of the config server.
+ * Only active when Micrometer is on the classpath.
+ *
+ * @since 4.3.0
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+public class ConfigServerMetricsConfiguration {
+
+	/**
+	 * Prefix for all config server meter names.
+	 */
+	public static final String METRIC_PREFIX = "spring.cloud.config.server";
+
+	@Bean
+	public MeterBinder environmentCacheMeterBinder(ObjectProvider<EnvironmentCache> environmentCache) {
+		return registry -> environmentCache.ifAvailable(cache -> bindEnvironmentCache(cache, registry));
+	}
+
+	@Bean
+	public MeterBinder requestCoalescerMeterBinder(ObjectProvider<RequestCoalescer> requestCoalescer) {
+		return registry -> requestCoalescer.ifAvailable(coalescer -> bindRequestCoalescer(coalescer, registry));
+	}
+
+	@Bean
+	public MeterBinder gitFetchMeterBinder(ListableBeanFactory beanFactory) {
+		return registry -> beanFactory.getBeansOfType(JGitEnvironmentRepository.class)
+			.forEach((beanName, repository) -> {
+				bindGitFetch(repository, beanName, "default", registry);
+				if (repository instanceof MultipleJGitEnvironmentRepository multiple) {
+					multiple.getRepos().forEach((name, repo) -> bindGitFetch(repo, beanName, name, registry));
+					bindGitPlaceholders(multiple, beanName, registry);
+				}
+			});
+	}
+
+	@Bean
+	public MeterBinder circuitBreakerMeterBinder(ObjectProvider<CompositeEnvironmentRepository> composite) {
+		return registry -> composite.ifAvailable(repository -> repository.getCircuitBreakers()
+			.forEach(circuitBreaker -> bindCircuitBreaker(circuitBreaker, registry)));
+	}
+
+	private static void bindCircuitBreaker(CircuitBreakerEnvironmentRepository circuitBreaker,
+			MeterRegistry registry) {
+		Gauge
+			.builder(METRIC_PREFIX + ".environment.circuit.breaker.open", circuitBreaker,
+					breaker -> breaker.isOpen() ? 1 : 0)
+			.description("Whether the circuit of the environment repository is open (1) or closed (0)")
+			.tag("repository", circuitBreaker.getName())
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.circuit.breaker.stale", circuitBreaker,
+					CircuitBreakerEnvironmentRepository::getStaleCount)
+			.description("Number of stale environments served while the circuit was open")
+			.tag("repository", circuitBreaker.getName())
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.circuit.breaker.rejected", circuitBreaker,
+					CircuitBreakerEnvironmentRepository::getRejectedCount)
+			.description("Number of requests rejected while the circuit was open and no stale environment was known")
+			.tag("repository", circuitBreaker.getName())
+			.register(registry);
+	}
+
+	private static void bindGitFetch(JGitEnvironmentRepository repository, String beanName, String name,
+			MeterRegistry registry) {
+		TimeGauge
+			.builder(METRIC_PREFIX + ".git.fetch.timestamp", repository, TimeUnit.MILLISECONDS,
+					JGitEnvironmentRepository::getLastFetchTime)
+			.description("Time (since the epoch) the last successful fetch of the git repository completed")
+			.tag("bean", beanName)
+			.tag("repository", name)
+			.register(registry);
+		TimeGauge
+			.builder(METRIC_PREFIX + ".git.fetch.duration", repository, TimeUnit.MILLISECONDS,
+					JGitEnvironmentRepository::getLastFetchDuration)
+			.description("Duration of the last successful fetch of the git repository")
+			.tag("bean", beanName)
+			.tag("repository", name)
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".git.fetch.failures", repository, JGitEnvironmentRepository::getFetchFailureCount)
+			.description("Number of failed fetches of the git repository")
+			.tag("bean", beanName)
+			.tag("repository", name)
+			.register(registry);
+	}
+
+	private static void bindGitPlaceholders(MultipleJGitEnvironmentRepository repository, String beanName,
+			MeterRegistry registry) {
+		Gauge
+			.builder(METRIC_PREFIX + ".git.placeholder.repositories", repository,
+					MultipleJGitEnvironmentRepository::getPlaceholderCount)
+			.description("Number of git repositories created for URIs with placeholders")
+			.tag("bean", beanName)
+			.register(registry);
+		Gauge
+			.builder(METRIC_PREFIX + ".git.placeholder.disk.usage", repository,
+					MultipleJGitEnvironmentRepository::getPlaceholderDiskUsage)
+			.description("Disk space used by the clones of git repositories created for URIs with placeholders")
+			.baseUnit("bytes")
+			.tag("bean", beanName)
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".git.placeholder.evictions", repository,
+					MultipleJGitEnvironmentRepository::getPlaceholderEvictionCount)
+			.description("Number of git repositories created for URIs with placeholders that were evicted")
+			.tag("bean", beanName)
+			.register(registry);
+	}
+
+	private static void bindRequestCoalescer(RequestCoalescer coalescer, MeterRegistry registry) {
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.requests.executed", coalescer, RequestCoalescer::getExecutionCount)
+			.description("Number of environment requests passed on to the environment repository")
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.requests.coalesced", coalescer, RequestCoalescer::getCoalescedCount)
+			.description("Number of environment requests that waited for an identical request in flight")
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.requests.coalesce.timeouts", coalescer,
+					RequestCoalescer::getTimeoutCount)
+			.description("Number of coalesced environment requests that gave up waiting")
+			.register(registry);
+		Gauge.builder(METRIC_PREFIX + ".environment.requests.in.flight", coalescer, RequestCoalescer::getInFlightCount)
+			.description("Number of distinct environment requests currently in flight")
+			.register(registry);
+	}
+
+	private static void bindEnvironmentCache(EnvironmentCache cache, MeterRegistry registry) {
+		FunctionCounter.builder(METRIC_PREFIX + ".environment.cache.hits", cache, EnvironmentCache::getHitCount)
+			.description("Number of environment requests served from the cache")
+			.register(registry);
+		FunctionCounter.builder(METRIC_PREFIX + ".environment.cache.misses", cache, EnvironmentCache::getMissCount)
+			.description("Number of environment requests not served from the cache")
+			.register(registry);
+		FunctionCounter
+			.builder(METRIC_PREFIX + ".environment.cache.evictions", cache, EnvironmentCache::getEvictionCount)
+			.description("Number of environments evicted because of size, expiry or version change")
+			.register(registry);
+		Gauge.builder(METRIC_PREFIX + ".environment.cache.size", cache, EnvironmentCache::size)
+			.description("Number of environments in the cache")
+			.register(registry);
+	}
+
+}
@@ -29,9 +29,13 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.cloud.config.server.encryption.EnvironmentEncryptor;
 import org.springframework.cloud.config.server.encryption.ResourceEncryptor;
+import org.springframework.cloud.config.server.environment.CachingEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.CoalescingEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.EnvironmentCache;
 import org.springframework.cloud.config.server.environment.EnvironmentController;
 import org.springframework.cloud.config.server.environment.EnvironmentEncryptorEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.RequestCoalescer;
 import org.springframework.cloud.config.server.resource.ResourceController;
 import org.springframework.cloud.config.server.resource.ResourceControllerAdvice;
 import org.springframework.cloud.config.server.resource.ResourceRepository;
@@ -74,6 +78,12 @@ public class ConfigServerMvcConfiguration implements WebMvcConfigurer {
 		@Autowired(required = false)
 		private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
+		@Autowired(required = false)
+		private EnvironmentCache environmentCache;
+
+		@Autowired(required = false)
+		private RequestCoalescer requestCoalescer;
+
 		@Bean
 		public EnvironmentController environmentController(EnvironmentRepository envRepository,
 				ConfigServerProperties server) {
@@ -108,11 +118,26 @@ public class ConfigServerMvcConfiguration implements WebMvcConfigurer {
 
 		private EnvironmentRepository encrypted(EnvironmentRepository envRepository, ConfigServerProperties server) {
 			EnvironmentEncryptorEnvironmentRepository encrypted = new EnvironmentEncryptorEnvironmentRepository(
-					envRepository, this.environmentEncryptors, this.observationRegistry);
+					cached(envRepository), this.environmentEncryptors, this.observationRegistry);
 			encrypted.setOverrides(server.getOverrides());
 			return encrypted;
 		}
 
+		private EnvironmentRepository cached(EnvironmentRepository envRepository) {
+			EnvironmentRepository repository = coalesced(envRepository);
+			if (this.environmentCache == null) {
+				return repository;
+			}
+			return new CachingEnvironmentRepository(repository, this.environmentCache);
+		}
+
+		private EnvironmentRepository coalesced(EnvironmentRepository envRepository) {
+			if (this.requestCoalescer == null) {
+				return envRepository;
+			}
+			return new CoalescingEnvironmentRepository(envRepository, this.requestCoalescer);
+		}
+
 	}
 
 	@Configuration(proxyBeanMethods = false)
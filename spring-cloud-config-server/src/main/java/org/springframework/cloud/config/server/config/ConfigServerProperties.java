@@ -16,11 +16,13 @@
 
 package org.springframework.cloud.config.server.config;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.core.style.ToStringCreator;
+import org.springframework.util.unit.DataSize;
 
 /**
  * @author Dave Syer
@@ -109,6 +111,33 @@ public class ConfigServerProperties {
 	 */
 	private Encrypt encrypt = new Encrypt();
 
+	/**
+	 * Cache configuration for environments served by the config server.
+	 */
+	private Cache cache = new Cache();
+
+	/**
+	 * Configuration for coalescing identical concurrent environment requests.
+	 */
+	private Coalescing coalescing = new Coalescing();
+
+	/**
+	 * Cache configuration for the files located by the resource endpoints.
+	 */
+	private ResourceCache resourceCache = new ResourceCache();
+
+	/**
+	 * Configuration for querying the repositories of a composite environment repository
+	 * at the same time.
+	 */
+	private ParallelComposite parallelComposite = new ParallelComposite();
+
+	/**
+	 * Configuration for the circuit breakers guarding the repositories of a composite
+	 * environment repository.
+	 */
+	private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -121,6 +150,26 @@ public class ConfigServerProperties {
 		return this.encrypt;
 	}
 
+	public Cache getCache() {
+		return this.cache;
+	}
+
+	public Coalescing getCoalescing() {
+		return this.coalescing;
+	}
+
+	public ResourceCache getResourceCache() {
+		return this.resourceCache;
+	}
+
+	public ParallelComposite getParallelComposite() {
+		return this.parallelComposite;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
 	public String getDefaultLabel() {
 		return this.defaultLabel;
 	}
@@ -215,6 +264,10 @@ public class ConfigServerProperties {
 			.append("failOnCompositeError", failOnCompositeError)
 			.append("encrypt", encrypt)
 			.append("reverseLocationOrder", reverseLocationOrder)
+			.append("cache", cache)
+			.append("resourceCache", resourceCache)
+			.append("parallelComposite", parallelComposite)
+			.append("circuitBreaker", circuitBreaker)
 			.toString();
 
 	}
@@ -235,6 +288,17 @@ public class ConfigServerProperties {
 		 */
 		private boolean plainTextEncrypt = false;
 
+		/**
+		 * Cache of decrypted property values.
+		 */
+		private DecryptionCache decryptionCache = new DecryptionCache();
+
+		/**
+		 * Number of threads used to decrypt the values of an environment in parallel. With
+		 * the default of 1 all values are decrypted on the request thread.
+		 */
+		private int decryptionThreads = 1;
+
 		public boolean isEnabled() {
 			return this.enabled;
 		}
@@ -251,12 +315,382 @@ public class ConfigServerProperties {
 			this.plainTextEncrypt = plainTextEncrypt;
 		}
 
+		public DecryptionCache getDecryptionCache() {
+			return this.decryptionCache;
+		}
+
+		public int getDecryptionThreads() {
+			return this.decryptionThreads;
+		}
+
+		public void setDecryptionThreads(int decryptionThreads) {
+			this.decryptionThreads = decryptionThreads;
+		}
+
 		@Override
 		public String toString() {
 			return new ToStringCreator(this).append("enabled", enabled)
 				.append("plainTextEncrypt", plainTextEncrypt)
+				.append("decryptionCache", decryptionCache)
+				.append("decryptionThreads", decryptionThreads)
+				.toString();
+
+		}
+
+	}
+
+	/**
+	 * Decrypted value cache properties.
+	 */
+	public static class DecryptionCache {
+
+		/**
+		 * Enable caching of decrypted property values, so that each cipher text is only
+		 * decrypted once per application and profiles while the entry is valid.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of decrypted values to keep in the cache.
+		 */
+		private int maxSize = 10000;
+
+		/**
+		 * Time to live of a cache entry.
+		 */
+		private Duration timeToLive = Duration.ofMinutes(5);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getTimeToLive() {
+			return this.timeToLive;
+		}
+
+		public void setTimeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled)
+				.append("maxSize", maxSize)
+				.append("timeToLive", timeToLive)
+				.toString();
+		}
+
+	}
+
+	/**
+	 * Environment cache properties.
+	 */
+	public static class Cache {
+
+		/**
+		 * Enable caching of environments in front of the environment repository. Entries
+		 * are invalidated when the version reported by the repository (e.g. the git
+		 * commit id) changes.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of environments to keep in the cache.
+		 */
+		private int maxSize = 1000;
+
+		/**
+		 * Time to live of a cache entry. Applies to all entries, and is the only means of
+		 * expiry for repositories that do not report a version.
+		 */
+		private Duration timeToLive = Duration.ofMinutes(5);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getTimeToLive() {
+			return this.timeToLive;
+		}
+
+		public void setTimeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled)
+				.append("maxSize", maxSize)
+				.append("timeToLive", timeToLive)
+				.toString();
+		}
+
+	}
+
+	public static class Coalescing {
+
+		/**
+		 * Enable coalescing of identical concurrent environment requests, so that only one
+		 * of them reaches the environment repository and the others share its result.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum time a request waits for an identical request that is already in
+		 * flight. Requests that time out go to the environment repository themselves.
+		 */
+		private Duration maxWait = Duration.ofSeconds(30);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getMaxWait() {
+			return this.maxWait;
+		}
+
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled).append("maxWait", maxWait).toString();
+		}
+
+	}
+
+	/**
+	 * Resource cache properties.
+	 */
+	public static class ResourceCache {
+
+		/**
+		 * Enable caching of the files located for the resource endpoints, so that the
+		 * search locations are only probed once per application, profiles, label, path
+		 * and repository version. Only applies to repositories that report a version
+		 * (e.g. the git commit id).
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of located files to keep in the cache.
+		 */
+		private int maxSize = 1000;
+
+		/**
+		 * Maximum total size of the file contents kept in the cache. Repositories that
+		 * change their files (e.g. Git) are cached with the content of the files, and the
+		 * least recently used ones are evicted once this size is exceeded.
+		 */
+		private DataSize maxBytes = DataSize.ofMegabytes(10);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public DataSize getMaxBytes() {
+			return this.maxBytes;
+		}
+
+		public void setMaxBytes(DataSize maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled)
+				.append("maxSize", maxSize)
+				.append("maxBytes", maxBytes)
+				.toString();
+		}
+
+	}
+
+	/**
+	 * Parallel composite properties.
+	 */
+	public static class ParallelComposite {
+
+		/**
+		 * Enable querying the repositories of a composite environment repository at the
+		 * same time instead of one after the other. The property sources are still added
+		 * in the order of the repositories.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Number of threads used to query the repositories. Defaults to one thread per
+		 * repository.
+		 */
+		private int threads = 0;
+
+		/**
+		 * Time to wait for each repository, counted from the start of the queries.
+		 * Repositories that take longer are treated as failed. By default there is no
+		 * timeout.
+		 */
+		private Duration timeout;
+
+		/**
+		 * Time to wait for individual repositories, keyed by bean name, overriding the
+		 * default timeout.
+		 */
+		private Map<String, Duration> timeouts = new LinkedHashMap<>();
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getThreads() {
+			return this.threads;
+		}
+
+		public void setThreads(int threads) {
+			this.threads = threads;
+		}
+
+		public Duration getTimeout() {
+			return this.timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		public Map<String, Duration> getTimeouts() {
+			return this.timeouts;
+		}
+
+		public void setTimeouts(Map<String, Duration> timeouts) {
+			this.timeouts = timeouts;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled)
+				.append("threads", threads)
+				.append("timeout", timeout)
+				.append("timeouts", timeouts)
 				.toString();
+		}
+
+	}
+
+	/**
+	 * Circuit breaker properties.
+	 */
+	public static class CircuitBreaker {
+
+		/**
+		 * Enable a circuit breaker for each repository of a composite environment
+		 * repository. While the circuit of a repository is open, the environments last
+		 * fetched from it with the same credentials are served with the state "stale",
+		 * and a request is let through as a trial every probe interval until the
+		 * repository recovers.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Number of consecutive failures (or calls taking longer than the timeout of the
+		 * repository) that open the circuit.
+		 */
+		private int failureThreshold = 5;
+
+		/**
+		 * Time between trial requests passed to a repository with an open circuit.
+		 */
+		private Duration probeInterval = Duration.ofSeconds(30);
+
+		/**
+		 * Maximum number of environments kept per repository to be served while its
+		 * circuit is open.
+		 */
+		private int maxSize = 1000;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
 
+		public int getFailureThreshold() {
+			return this.failureThreshold;
+		}
+
+		public void setFailureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+		}
+
+		public Duration getProbeInterval() {
+			return this.probeInterval;
+		}
+
+		public void setProbeInterval(Duration probeInterval) {
+			this.probeInterval = probeInterval;
+		}
+
+		public int getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringCreator(this).append("enabled", enabled)
+				.append("failureThreshold", failureThreshold)
+				.append("probeInterval", probeInterval)
+				.append("maxSize", maxSize)
+				.toString();
 		}
 
 	}
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.config.server.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
@@ -23,6 +24,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.config.server.encryption.CipherEnvironmentEncryptor;
+import org.springframework.cloud.config.server.encryption.DecryptedValueCache;
 import org.springframework.cloud.config.server.encryption.EnvironmentEncryptor;
 import org.springframework.cloud.config.server.encryption.SingleTextEncryptorLocator;
 import org.springframework.cloud.config.server.encryption.TextEncryptorLocator;
@@ -60,12 +62,21 @@ public class EncryptionAutoConfiguration {
 	@ConditionalOnProperty(value = "spring.cloud.config.server.encrypt.enabled", matchIfMissing = true)
 	@ConditionalOnBean(TextEncryptorLocator.class)
 	public EnvironmentEncryptor environmentEncryptor(@Autowired(required = false) TextEncryptorLocator locator,
-			TextEncryptor encryptor) {
+			TextEncryptor encryptor, ObjectProvider<ConfigServerProperties> server) {
 		if (locator == null) {
 			locator = new SingleTextEncryptorLocator(encryptor);
 		}
 		CipherEnvironmentEncryptor environmentEncryptor = new CipherEnvironmentEncryptor(locator);
 		environmentEncryptor.setPrefixInvalidProperties(prefixInvalidProperties);
+		ConfigServerProperties properties = server.getIfAvailable();
+		if (properties != null) {
+			if (properties.getEncrypt().getDecryptionCache().isEnabled()) {
+				ConfigServerProperties.DecryptionCache cache = properties.getEncrypt().getDecryptionCache();
+				environmentEncryptor
+					.setDecryptedValueCache(new DecryptedValueCache(cache.getMaxSize(), cache.getTimeToLive()));
+			}
+			environmentEncryptor.setDecryptionThreads(properties.getEncrypt().getDecryptionThreads());
+		}
 		return environmentEncryptor;
 	}
 
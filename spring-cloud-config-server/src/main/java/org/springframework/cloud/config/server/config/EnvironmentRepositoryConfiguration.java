@@ -29,6 +29,7 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.ssm.SsmClient;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.health.AbstractHealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -57,6 +58,7 @@ import org.springframework.cloud.config.server.environment.ConsulEnvironmentWatc
 import org.springframework.cloud.config.server.environment.CredhubEnvironmentProperties;
 import org.springframework.cloud.config.server.environment.CredhubEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.CredhubEnvironmentRepositoryFactory;
+import org.springframework.cloud.config.server.environment.EnvironmentCache;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentWatch;
 import org.springframework.cloud.config.server.environment.GoogleSecretManagerEnvironmentProperties;
@@ -81,6 +83,7 @@ import org.springframework.cloud.config.server.environment.NativeEnvironmentRepo
 import org.springframework.cloud.config.server.environment.RedisEnvironmentProperties;
 import org.springframework.cloud.config.server.environment.RedisEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.RedisEnvironmentRepositoryFactory;
+import org.springframework.cloud.config.server.environment.RequestCoalescer;
 import org.springframework.cloud.config.server.environment.SearchPathCompositeEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.SvnEnvironmentRepositoryFactory;
 import org.springframework.cloud.config.server.environment.SvnKitEnvironmentProperties;
@@ -156,8 +159,36 @@ public class EnvironmentRepositoryConfiguration {
 	protected static class ConfigServerActuatorConfiguration {
 
 		@Bean
-		public ConfigServerHealthIndicator configServerHealthIndicator(EnvironmentRepository repository) {
-			return new ConfigServerHealthIndicator(repository);
+		public ConfigServerHealthIndicator configServerHealthIndicator(EnvironmentRepository repository,
+				ObjectProvider<CompositeEnvironmentRepository> composite) {
+			ConfigServerHealthIndicator healthIndicator = new ConfigServerHealthIndicator(repository);
+			composite.ifAvailable(compositeRepository -> healthIndicator
+				.reportCircuitBreakers(compositeRepository.getCircuitBreakers()));
+			return healthIndicator;
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(ConfigServerProperties.PREFIX + ".cache.enabled")
+	protected static class EnvironmentCacheConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public EnvironmentCache environmentCache(ConfigServerProperties server) {
+			return new EnvironmentCache.Default(server.getCache().getMaxSize(), server.getCache().getTimeToLive());
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(ConfigServerProperties.PREFIX + ".coalescing.enabled")
+	protected static class RequestCoalescerConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public RequestCoalescer requestCoalescer(ConfigServerProperties server) {
+			return new RequestCoalescer(server.getCoalescing().getMaxWait());
 		}
 
 	}
@@ -575,10 +606,12 @@ class CompositeRepositoryConfiguration {
 	@ConditionalOnSearchPathLocator
 	public SearchPathCompositeEnvironmentRepository searchPathCompositeEnvironmentRepository(
 			List<EnvironmentRepository> environmentRepositories, ConfigServerProperties properties,
-			ObjectProvider<ObservationRegistry> observationRegistry) {
-		return new SearchPathCompositeEnvironmentRepository(environmentRepositories,
-				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
-				properties.isFailOnCompositeError());
+			ObjectProvider<ObservationRegistry> observationRegistry, BeanFactory beanFactory) {
+		return CompositeConfiguration.configure(
+				new SearchPathCompositeEnvironmentRepository(environmentRepositories,
+						observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+						properties.isFailOnCompositeError()),
+				environmentRepositories, properties, beanFactory);
 	}
 
 	@Primary
@@ -586,10 +619,12 @@ class CompositeRepositoryConfiguration {
 	@ConditionalOnMissingSearchPathLocator
 	public CompositeEnvironmentRepository compositeEnvironmentRepository(
 			List<EnvironmentRepository> environmentRepositories, ConfigServerProperties properties,
-			ObjectProvider<ObservationRegistry> observationRegistry) {
-		return new CompositeEnvironmentRepository(environmentRepositories,
-				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
-				properties.isFailOnCompositeError());
+			ObjectProvider<ObservationRegistry> observationRegistry, BeanFactory beanFactory) {
+		return CompositeConfiguration.configure(
+				new CompositeEnvironmentRepository(environmentRepositories,
+						observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+						properties.isFailOnCompositeError()),
+				environmentRepositories, properties, beanFactory);
 	}
 
 }
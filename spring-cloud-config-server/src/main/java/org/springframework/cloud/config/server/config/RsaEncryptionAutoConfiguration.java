@@ -16,14 +16,18 @@
 
 package org.springframework.cloud.config.server.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.bootstrap.encrypt.KeyProperties;
 import org.springframework.cloud.bootstrap.encrypt.RsaProperties;
+import org.springframework.cloud.config.server.encryption.EncryptionController;
 import org.springframework.cloud.config.server.encryption.KeyStoreTextEncryptorLocator;
 import org.springframework.cloud.config.server.encryption.TextEncryptorLocator;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.encrypt.KeyStoreKeyFactory;
@@ -52,9 +56,7 @@ public class RsaEncryptionAutoConfiguration {
 	@ConditionalOnMissingBean
 	public TextEncryptorLocator textEncryptorLocator(KeyProperties key, RsaProperties rsaProperties) {
 		KeyProperties.KeyStore keyStore = key.getKeyStore();
-		KeyStoreTextEncryptorLocator locator = new KeyStoreTextEncryptorLocator(
-				new KeyStoreKeyFactory(keyStore.getLocation(), keyStore.getPassword().toCharArray(),
-						key.getKeyStore().getType()),
+		KeyStoreTextEncryptorLocator locator = new KeyStoreTextEncryptorLocator(keyStoreKeyFactory(keyStore),
 				keyStore.getSecret(), keyStore.getAlias());
 		RsaAlgorithm algorithm = rsaProperties.getAlgorithm();
 		locator.setRsaAlgorithm(algorithm);
@@ -63,4 +65,45 @@ public class RsaEncryptionAutoConfiguration {
 		return locator;
 	}
 
+	@Bean
+	public KeyStoreRefreshListener keyStoreRefreshListener(TextEncryptorLocator textEncryptorLocator,
+			KeyProperties key, ObjectProvider<EncryptionController> encryptionController) {
+		return new KeyStoreRefreshListener(textEncryptorLocator, key, encryptionController);
+	}
+
+	private static KeyStoreKeyFactory keyStoreKeyFactory(KeyProperties.KeyStore keyStore) {
+		return new KeyStoreKeyFactory(keyStore.getLocation(), keyStore.getPassword().toCharArray(),
+				keyStore.getType());
+	}
+
+	/**
+	 * Reloads the keystore of a {@link KeyStoreTextEncryptorLocator} when the context is
+	 * refreshed, so that the encryptors it caches are built from the current key pairs,
+	 * and clears the checks of the encryptors made by the {@link EncryptionController}.
+	 */
+	static class KeyStoreRefreshListener implements ApplicationListener<RefreshScopeRefreshedEvent> {
+
+		private final TextEncryptorLocator textEncryptorLocator;
+
+		private final KeyProperties key;
+
+		private final ObjectProvider<EncryptionController> encryptionController;
+
+		KeyStoreRefreshListener(TextEncryptorLocator textEncryptorLocator, KeyProperties key,
+				ObjectProvider<EncryptionController> encryptionController) {
+			this.textEncryptorLocator = textEncryptorLocator;
+			this.key = key;
+			this.encryptionController = encryptionController;
+		}
+
+		@Override
+		public void onApplicationEvent(RefreshScopeRefreshedEvent event) {
+			if (this.textEncryptorLocator instanceof KeyStoreTextEncryptorLocator locator) {
+				locator.setKeyStoreKeyFactory(keyStoreKeyFactory(this.key.getKeyStore()));
+			}
+			this.encryptionController.ifAvailable(EncryptionController::clearEncryptorChecks);
+		}
+
+	}
+
 }
@@ -17,9 +17,9 @@
 package org.springframework.cloud.config.server.encryption;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
@@ -55,22 +55,71 @@ abstract class AbstractCipherResourceEncryptor implements ResourceEncryptor {
 
 	protected String decryptWithJacksonParser(String text, String name, String[] profiles, JsonFactory factory)
 			throws IOException {
-		Set<String> valsToDecrpyt = new HashSet<String>();
-		JsonParser parser = factory.createParser(text);
-		JsonToken token;
-
-		while ((token = parser.nextToken()) != null) {
-			if (token.equals(JsonToken.VALUE_STRING) && parser.getValueAsString().startsWith(CIPHER_MARKER)) {
-				valsToDecrpyt.add(parser.getValueAsString().trim());
+		StringBuilder result = null;
+		int position = 0;
+		Map<String, String> decrypted = new HashMap<>();
+		try (JsonParser parser = factory.createParser(text)) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				if (!token.equals(JsonToken.VALUE_STRING)) {
+					continue;
+				}
+				String value = getCipherValue(parser.getValueAsString());
+				if (value == null) {
+					continue;
+				}
+				// look for the value from the start of its token on, so that the same text
+				// elsewhere in the file is left alone
+				long tokenOffset = parser.getTokenLocation().getCharOffset();
+				int start = text.indexOf(value, (int) Math.max(position, tokenOffset));
+				if (start < 0) {
+					continue;
+				}
+				if (result == null) {
+					result = new StringBuilder(text.length());
+				}
+				result.append(text, position, start).append(decryptValue(value, name, profiles, decrypted));
+				position = start + value.length();
 			}
 		}
+		if (result == null) {
+			return text;
+		}
+		return result.append(text, position, text.length()).toString();
+	}
 
-		for (String value : valsToDecrpyt) {
-			String decryptedValue = decryptValue(value.replace(CIPHER_MARKER, ""), name, profiles);
-			text = text.replace(value, decryptedValue);
+	/**
+	 * Returns the trimmed value if it is a cipher, also when it is wrapped in quotes (as
+	 * in a block scalar holding a quoted value).
+	 */
+	private String getCipherValue(String value) {
+		if (value == null) {
+			return null;
 		}
+		value = value.trim();
+		if (value.length() > 1 && (value.charAt(0) == '\'' || value.charAt(0) == '"')
+				&& value.charAt(value.length() - 1) == value.charAt(0)) {
+			value = value.substring(1, value.length() - 1);
+		}
+		return value.startsWith(CIPHER_MARKER) ? value : null;
+	}
 
-		return text;
+	/**
+	 * Decrypts a value including its cipher marker, decrypting each distinct value of a
+	 * resource only once.
+	 * @param value the value with the cipher marker
+	 * @param name the application name
+	 * @param profiles the profiles
+	 * @param decrypted the values decrypted so far
+	 * @return the decrypted value
+	 */
+	protected String decryptValue(String value, String name, String[] profiles, Map<String, String> decrypted) {
+		String result = decrypted.get(value);
+		if (result == null) {
+			result = decryptValue(value.replace(CIPHER_MARKER, ""), name, profiles);
+			decrypted.put(value, result);
+		}
+		return result;
 	}
 
 	protected String decryptValue(String value, String name, String[] profiles) {
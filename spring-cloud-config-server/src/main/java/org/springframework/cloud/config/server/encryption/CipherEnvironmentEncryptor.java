@@ -16,17 +16,25 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
@@ -38,7 +46,7 @@ import org.springframework.util.StringUtils;
  *
  */
 @Component
-public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
+public class CipherEnvironmentEncryptor implements EnvironmentEncryptor, DisposableBean {
 
 	private static Log logger = LogFactory.getLog(CipherEnvironmentEncryptor.class);
 
@@ -48,6 +56,10 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 
 	private EnvironmentPrefixHelper helper = new EnvironmentPrefixHelper();
 
+	private DecryptedValueCache cache;
+
+	private volatile ExecutorService executor;
+
 	@Autowired
 	public CipherEnvironmentEncryptor(TextEncryptorLocator encryptor) {
 		this.encryptor = encryptor;
@@ -59,46 +71,161 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 	}
 
 	private Environment decrypt(Environment environment, TextEncryptorLocator encryptor) {
+		String profiles = StringUtils.arrayToCommaDelimitedString(environment.getProfiles());
 		Environment result = new Environment(environment);
+		List<CipherValue> values = new ArrayList<>();
 		for (PropertySource source : environment.getPropertySources()) {
-			Map<Object, Object> map = new LinkedHashMap<Object, Object>(source.getSource());
-			for (Map.Entry<Object, Object> entry : new LinkedHashSet<>(map.entrySet())) {
-				Object key = entry.getKey();
-				String name = key.toString();
+			if (!hasCipherValues(source)) {
+				// nothing to decrypt, so there is no need to copy the source
+				result.add(source);
+				continue;
+			}
+			@SuppressWarnings("unchecked")
+			Map<Object, Object> original = (Map<Object, Object>) source.getSource();
+			Map<Object, Object> map = new LinkedHashMap<Object, Object>(original);
+			for (Map.Entry<Object, Object> entry : original.entrySet()) {
 				if (entry.getValue() != null && entry.getValue().toString().startsWith("{cipher}")) {
-					String value = entry.getValue().toString();
-					map.remove(key);
-					try {
-						value = value.substring("{cipher}".length());
-						value = encryptor
-							.locate(this.helper.getEncryptorKeys(name,
-									StringUtils.arrayToCommaDelimitedString(environment.getProfiles()), value))
-							.decrypt(this.helper.stripPrefix(value));
-					}
-					catch (Exception e) {
-						if (this.prefixInvalidProperties) {
-							value = "<n/a>";
-							name = "invalid." + name;
-						}
-						String message = "Cannot decrypt key: " + key + " (" + e.getClass() + ": " + e.getMessage()
-								+ ")";
-						if (logger.isDebugEnabled()) {
-							logger.debug(message, e);
-						}
-						else if (logger.isWarnEnabled()) {
-							logger.warn(message);
-						}
-					}
-					map.put(name, value);
+					map.remove(entry.getKey());
+					values.add(new CipherValue(map, entry.getKey(),
+							entry.getValue().toString().substring("{cipher}".length())));
 				}
 			}
 			result.add(new PropertySource(source.getName(), map));
 		}
+		ExecutorService executor = this.executor;
+		if (executor != null && values.size() > 1) {
+			for (CipherValue value : values) {
+				value.plainText = CompletableFuture.supplyAsync(
+						() -> decrypt(encryptor, value.key.toString(), profiles, value.cipherText), executor);
+			}
+		}
+		// decrypted values are added in their original order, whichever thread decrypted
+		// them
+		for (CipherValue value : values) {
+			String name = value.key.toString();
+			String plainText = value.cipherText;
+			try {
+				plainText = (value.plainText != null) ? join(value.plainText)
+						: decrypt(encryptor, name, profiles, value.cipherText);
+			}
+			catch (Exception e) {
+				if (this.prefixInvalidProperties) {
+					plainText = "<n/a>";
+					name = "invalid." + name;
+				}
+				String message = "Cannot decrypt key: " + value.key + " (" + e.getClass() + ": " + e.getMessage()
+						+ ")";
+				if (logger.isDebugEnabled()) {
+					logger.debug(message, e);
+				}
+				else if (logger.isWarnEnabled()) {
+					logger.warn(message);
+				}
+			}
+			value.map.put(name, plainText);
+		}
 		return result;
 	}
 
+	private String decrypt(TextEncryptorLocator encryptor, String name, String profiles, String value) {
+		Map<String, String> keys = this.helper.getEncryptorKeys(name, profiles, value);
+		String plainText = (this.cache != null) ? this.cache.get(value, keys) : null;
+		if (plainText == null) {
+			plainText = encryptor.locate(keys).decrypt(this.helper.stripPrefix(value));
+			if (this.cache != null) {
+				this.cache.put(value, keys, plainText);
+			}
+		}
+		return plainText;
+	}
+
+	private static String join(CompletableFuture<String> plainText) throws Exception {
+		try {
+			return plainText.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw ex;
+		}
+	}
+
+	private boolean hasCipherValues(PropertySource source) {
+		for (Object value : source.getSource().values()) {
+			if (value != null && value.toString().startsWith("{cipher}")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the cache of decrypted values, so that values are only decrypted once while
+	 * the cache entries are valid.
+	 * @param cache the cache, or {@code null} to decrypt every value on every request
+	 */
+	public void setDecryptedValueCache(DecryptedValueCache cache) {
+		this.cache = cache;
+	}
+
+	public DecryptedValueCache getDecryptedValueCache() {
+		return this.cache;
+	}
+
 	public void setPrefixInvalidProperties(boolean prefixInvalidProperties) {
 		this.prefixInvalidProperties = prefixInvalidProperties;
 	}
 
+	/**
+	 * Sets the number of threads used to decrypt the values of an environment in
+	 * parallel. The decrypted environment is the same as when the values are decrypted
+	 * one after the other.
+	 * @param decryptionThreads the number of threads, or 1 to decrypt all values on the
+	 * calling thread
+	 */
+	public void setDecryptionThreads(int decryptionThreads) {
+		Assert.isTrue(decryptionThreads > 0, "decryptionThreads must be greater than 0");
+		ExecutorService previous = this.executor;
+		if (decryptionThreads > 1) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("config-server-decrypt-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newFixedThreadPool(decryptionThreads, threadFactory);
+		}
+		else {
+			this.executor = null;
+		}
+		if (previous != null) {
+			previous.shutdown();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+	}
+
+	private static final class CipherValue {
+
+		private final Map<Object, Object> map;
+
+		private final Object key;
+
+		private final String cipherText;
+
+		private CompletableFuture<String> plainText;
+
+		private CipherValue(Map<Object, Object> map, Object key, String cipherText) {
+			this.map = map;
+			this.key = key;
+			this.cipherText = cipherText;
+		}
+
+	}
+
 }
@@ -16,13 +16,11 @@
 
 package org.springframework.cloud.config.server.encryption;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
-import java.util.Set;
+import java.util.Map;
 
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.stereotype.Component;
@@ -50,25 +48,107 @@ public class CipherResourcePropertiesEncryptor extends AbstractCipherResourceEnc
 
 	@Override
 	public String decrypt(String text, Environment environment) throws IOException {
-		Set<String> valsToDecrpyt = new HashSet<String>();
-		Properties properties = new Properties();
-		StringBuffer sb = new StringBuffer();
-		properties.load(new ByteArrayInputStream(text.getBytes()));
+		StringBuilder result = null;
+		int position = 0;
+		Map<String, String> decrypted = new HashMap<>();
+		boolean continuation = false;
+		int lineStart = 0;
+		while (lineStart < text.length()) {
+			int lineEnd = lineStart;
+			while (lineEnd < text.length() && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+				lineEnd++;
+			}
+			boolean continued = isContinued(text, lineStart, lineEnd);
+			if (!continuation) {
+				int valueStart = getValueStart(text, lineStart, lineEnd);
+				// values spanning several lines or containing escapes are left as they are
+				if (valueStart >= 0 && !continued && text.startsWith(CIPHER_MARKER, valueStart)
+						&& !hasEscapes(text, valueStart, lineEnd)) {
+					String value = text.substring(valueStart, lineEnd);
+					if (result == null) {
+						result = new StringBuilder(text.length());
+					}
+					result.append(text, position, valueStart)
+						.append(decryptValue(value, environment.getName(), environment.getProfiles(), decrypted));
+					position = lineEnd;
+				}
+			}
+			continuation = continued && (continuation || !isComment(text, lineStart, lineEnd));
+			lineStart = lineEnd + 1;
+			if (lineEnd < text.length() - 1 && text.charAt(lineEnd) == '\r' && text.charAt(lineEnd + 1) == '\n') {
+				lineStart++;
+			}
+		}
+		if (result == null) {
+			return text;
+		}
+		return result.append(text, position, text.length()).toString();
+	}
 
-		for (Object value : properties.values()) {
-			String valueStr = value.toString();
-			if (valueStr.startsWith(CIPHER_MARKER)) {
-				valsToDecrpyt.add(valueStr);
+	/**
+	 * Returns the index of the value of the line, following the rules of
+	 * {@link java.util.Properties#load(java.io.Reader)}, or -1 for blank and comment
+	 * lines.
+	 */
+	private int getValueStart(String text, int lineStart, int lineEnd) {
+		int index = skipWhitespace(text, lineStart, lineEnd);
+		if (index == lineEnd || isComment(text, lineStart, lineEnd)) {
+			return -1;
+		}
+		boolean separator = false;
+		while (index < lineEnd) {
+			char c = text.charAt(index);
+			if (c == '\\') {
+				index += 2;
+				continue;
+			}
+			if (c == '=' || c == ':') {
+				separator = true;
+				index++;
+				break;
 			}
+			if (isWhitespace(c)) {
+				break;
+			}
+			index++;
+		}
+		index = skipWhitespace(text, Math.min(index, lineEnd), lineEnd);
+		if (!separator && index < lineEnd && (text.charAt(index) == '=' || text.charAt(index) == ':')) {
+			index = skipWhitespace(text, index + 1, lineEnd);
 		}
+		return index;
+	}
+
+	private boolean isComment(String text, int lineStart, int lineEnd) {
+		int index = skipWhitespace(text, lineStart, lineEnd);
+		return index < lineEnd && (text.charAt(index) == '#' || text.charAt(index) == '!');
+	}
 
-		for (String value : valsToDecrpyt) {
-			String decryptedValue = decryptValue(value.replace(CIPHER_MARKER, ""), environment.getName(),
-					environment.getProfiles());
-			text = text.replace(value, decryptedValue);
+	/**
+	 * Returns whether the line ends with an odd number of backslashes.
+	 */
+	private boolean isContinued(String text, int lineStart, int lineEnd) {
+		int backslashes = 0;
+		for (int i = lineEnd - 1; i >= lineStart && text.charAt(i) == '\\'; i--) {
+			backslashes++;
 		}
+		return backslashes % 2 == 1;
+	}
+
+	private boolean hasEscapes(String text, int valueStart, int lineEnd) {
+		int index = text.indexOf('\\', valueStart);
+		return index >= 0 && index < lineEnd;
+	}
+
+	private int skipWhitespace(String text, int index, int lineEnd) {
+		while (index < lineEnd && isWhitespace(text.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
 
-		return text;
+	private boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\f';
 	}
 
 }
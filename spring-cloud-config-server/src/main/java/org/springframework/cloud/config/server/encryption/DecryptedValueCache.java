@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.encryption;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * Size bounded, least recently used cache of decrypted property values used by
+ * {@link CipherEnvironmentEncryptor}. Entries are keyed by the cipher text and the keys
+ * the {@link TextEncryptorLocator} is asked for (application name, profiles and any
+ * prefix of the cipher text), and expire after a fixed time to live so that rotated
+ * keys are picked up. Failed decryptions are never cached.
+ *
+ * @since 4.3.0
+ */
+public class DecryptedValueCache {
+
+	private final int maxSize;
+
+	private final long timeToLive;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final Map<Key, Entry> entries;
+
+	public DecryptedValueCache(int maxSize, Duration timeToLive) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		Assert.notNull(timeToLive, "timeToLive must not be null");
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive.toMillis();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > DecryptedValueCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached plain text for the given cipher text and encryptor keys.
+	 * @param cipherText the cipher text (without the {cipher} marker)
+	 * @param keys the keys used to locate the encryptor
+	 * @return the plain text, or {@code null} if there is no valid entry
+	 */
+	public String get(String cipherText, Map<String, String> keys) {
+		Key key = new Key(cipherText, keys);
+		Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(key);
+			if (entry != null && now() >= entry.expiresAt) {
+				this.entries.remove(key);
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			this.misses.incrementAndGet();
+			return null;
+		}
+		this.hits.incrementAndGet();
+		return entry.plainText;
+	}
+
+	/**
+	 * Stores the plain text for the given cipher text and encryptor keys.
+	 * @param cipherText the cipher text (without the {cipher} marker)
+	 * @param keys the keys used to locate the encryptor
+	 * @param plainText the decrypted value
+	 */
+	public void put(String cipherText, Map<String, String> keys, String plainText) {
+		Entry entry = new Entry(plainText, now() + this.timeToLive);
+		synchronized (this.entries) {
+			this.entries.put(new Key(cipherText, keys), entry);
+		}
+	}
+
+	/**
+	 * Removes all entries from the cache, e.g. after the keys have changed.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * @return the number of entries currently in the cache
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * @return the number of lookups that returned a cached value
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that did not return a cached value
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	protected long now() {
+		return System.currentTimeMillis();
+	}
+
+	private static final class Key {
+
+		private final String cipherText;
+
+		private final Map<String, String> keys;
+
+		private Key(String cipherText, Map<String, String> keys) {
+			this.cipherText = cipherText;
+			// the locator may modify the keys it is given
+			this.keys = new HashMap<>(keys);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key other = (Key) o;
+			return Objects.equals(this.cipherText, other.cipherText) && Objects.equals(this.keys, other.keys);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.cipherText, this.keys);
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final String plainText;
+
+		private final long expiresAt;
+
+		private Entry(String plainText, long expiresAt) {
+			this.plainText = plainText;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
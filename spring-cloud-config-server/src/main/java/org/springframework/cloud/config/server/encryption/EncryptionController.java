@@ -17,11 +17,19 @@
 package org.springframework.cloud.config.server.encryption;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -62,10 +70,36 @@ public class EncryptionController {
 
 	private String defaultProfile = "default";
 
+	/**
+	 * Results of the checks of the encryptors returned by the locator, so that each
+	 * encryptor is only checked once. Encryptors are compared by identity, and entries
+	 * are dropped once their encryptor is garbage collected.
+	 */
+	private final Map<EncryptorReference, EncryptorChecks> checks = new ConcurrentHashMap<>();
+
+	private final ReferenceQueue<TextEncryptor> collectedEncryptors = new ReferenceQueue<>();
+
 	public EncryptionController(TextEncryptorLocator encryptorLocator) {
 		this.encryptorLocator = encryptorLocator;
 	}
 
+	/**
+	 * Replaces the locator of the encryptors, e.g. after the keys have changed.
+	 * @param encryptorLocator the new locator
+	 */
+	public void setEncryptorLocator(TextEncryptorLocator encryptorLocator) {
+		this.encryptorLocator = encryptorLocator;
+		clearEncryptorChecks();
+	}
+
+	/**
+	 * Forgets the results of the checks of the encryptors, e.g. after the keys of the
+	 * locator have been reloaded.
+	 */
+	public void clearEncryptorChecks() {
+		this.checks.clear();
+	}
+
 	public void setDefaultApplicationName(String defaultApplicationName) {
 		this.defaultApplicationName = defaultApplicationName;
 	}
@@ -143,14 +177,117 @@ public class EncryptionController {
 		}
 	}
 
+	@PostMapping(path = "/encrypt/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Object encryptBatch(@RequestBody Object data) {
+		return encryptBatch(defaultApplicationName, defaultProfile, data);
+	}
+
+	/**
+	 * Encrypts a JSON array or object of values in one go. Encryptors are located (and
+	 * checked) once for each distinct set of keys.
+	 * @param name the application name
+	 * @param profiles the profiles
+	 * @param data a JSON array or object of values
+	 * @return the encrypted values, in the same shape and order as the input
+	 */
+	@PostMapping(path = "/encrypt/batch/{name}/{profiles}", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Object encryptBatch(@PathVariable String name, @PathVariable String profiles, @RequestBody Object data) {
+		Map<Map<String, String>, TextEncryptor> encryptors = new HashMap<>();
+		Object encrypted = batch(data, input -> {
+			Map<String, String> keys = helper.getEncryptorKeys(name, profiles, input);
+			TextEncryptor encryptor = encryptors.computeIfAbsent(keys, k -> {
+				// the locator may modify the keys, which must not change the key of the map
+				TextEncryptor located = getEncryptor(new HashMap<>(k));
+				validateEncryptionWeakness(located);
+				return located;
+			});
+			return helper.addPrefix(new LinkedHashMap<>(keys), encryptor.encrypt(helper.stripPrefix(input)));
+		});
+		if (logger.isInfoEnabled()) {
+			logger.info("Encrypted batch data");
+		}
+		return encrypted;
+	}
+
+	@PostMapping(path = "/decrypt/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Object decryptBatch(@RequestBody Object data) {
+		return decryptBatch(defaultApplicationName, defaultProfile, data);
+	}
+
+	/**
+	 * Decrypts a JSON array or object of values in one go. Encryptors are located (and
+	 * checked) once for each distinct set of keys. The whole batch fails if any of the
+	 * values cannot be decrypted.
+	 * @param name the application name
+	 * @param profiles the profiles
+	 * @param data a JSON array or object of values
+	 * @return the decrypted values, in the same shape and order as the input
+	 */
+	@PostMapping(path = "/decrypt/batch/{name}/{profiles}", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Object decryptBatch(@PathVariable String name, @PathVariable String profiles, @RequestBody Object data) {
+		Map<Map<String, String>, TextEncryptor> encryptors = new HashMap<>();
+		Object decrypted = batch(data, input -> {
+			try {
+				TextEncryptor encryptor = encryptors.computeIfAbsent(helper.getEncryptorKeys(name, profiles, input),
+						k -> {
+							TextEncryptor located = getEncryptor(new HashMap<>(k));
+							checkDecryptionPossible(located);
+							validateEncryptionWeakness(located);
+							return located;
+						});
+				return encryptor.decrypt(helper.stripPrefix(input));
+			}
+			catch (IllegalArgumentException | IllegalStateException e) {
+				if (logger.isErrorEnabled()) {
+					logger.error("Cannot decrypt batch for key:" + name + ", value:" + input
+							+ ", Please verify if encrypt.key is set correctly", e);
+				}
+				throw new InvalidCipherException();
+			}
+		});
+		if (logger.isInfoEnabled()) {
+			logger.info("Decrypted batch cipher data");
+		}
+		return decrypted;
+	}
+
+	private Object batch(Object data, Function<String, String> operation) {
+		if (data instanceof List<?> list) {
+			List<String> result = new ArrayList<>(list.size());
+			for (Object value : list) {
+				result.add(operation.apply(batchValue(value)));
+			}
+			return result;
+		}
+		if (data instanceof Map<?, ?> map) {
+			Map<Object, String> result = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				result.put(entry.getKey(), operation.apply(batchValue(entry.getValue())));
+			}
+			return result;
+		}
+		throw new InvalidBatchException();
+	}
+
+	private String batchValue(Object value) {
+		if (!(value instanceof String)) {
+			throw new InvalidBatchException();
+		}
+		return (String) value;
+	}
+
 	private TextEncryptor getEncryptor(String name, String profiles, String data) {
+		return getEncryptor(helper.getEncryptorKeys(name, profiles, data));
+	}
+
+	private TextEncryptor getEncryptor(Map<String, String> keys) {
 		if (encryptorLocator == null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Text encryptorLocator is null.");
 			}
 			throw new KeyNotInstalledException();
 		}
-		TextEncryptor encryptor = encryptorLocator.locate(helper.getEncryptorKeys(name, profiles, data));
+		TextEncryptor encryptor = encryptorLocator.locate(keys);
 		if (encryptor == null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("TextEncryptor is null.");
@@ -161,17 +298,26 @@ public class EncryptionController {
 	}
 
 	private void validateEncryptionWeakness(TextEncryptor textEncryptor) {
-		if (textEncryptor.encrypt("FOO").equals("FOO")) {
+		if (getChecks(textEncryptor).tooWeak) {
 			throw new EncryptionTooWeakException();
 		}
 	}
 
 	private void checkDecryptionPossible(TextEncryptor textEncryptor) {
-		if (textEncryptor instanceof RsaSecretEncryptor && !((RsaSecretEncryptor) textEncryptor).canDecrypt()) {
+		if (!getChecks(textEncryptor).decryptionPossible) {
 			throw new DecryptionNotSupportedException();
 		}
 	}
 
+	private EncryptorChecks getChecks(TextEncryptor textEncryptor) {
+		Reference<? extends TextEncryptor> collected;
+		while ((collected = this.collectedEncryptors.poll()) != null) {
+			this.checks.remove(collected);
+		}
+		return this.checks.computeIfAbsent(new EncryptorReference(textEncryptor, this.collectedEncryptors),
+				reference -> new EncryptorChecks(textEncryptor));
+	}
+
 	private String stripFormData(String data, MediaType type, boolean cipher) {
 
 		if (data.endsWith("=") && !type.equals(MediaType.TEXT_PLAIN)) {
@@ -212,6 +358,48 @@ public class EncryptionController {
 
 	}
 
+	/**
+	 * A weak reference to an encryptor that is equal to the references to the same
+	 * encryptor instance.
+	 */
+	private static final class EncryptorReference extends WeakReference<TextEncryptor> {
+
+		private final int hash;
+
+		private EncryptorReference(TextEncryptor encryptor, ReferenceQueue<TextEncryptor> queue) {
+			super(encryptor, queue);
+			this.hash = System.identityHashCode(encryptor);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			return other instanceof EncryptorReference reference && get() != null && get() == reference.get();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+	private static final class EncryptorChecks {
+
+		private final boolean tooWeak;
+
+		private final boolean decryptionPossible;
+
+		private EncryptorChecks(TextEncryptor textEncryptor) {
+			this.tooWeak = textEncryptor.encrypt("FOO").equals("FOO");
+			this.decryptionPossible = !(textEncryptor instanceof RsaSecretEncryptor)
+					|| ((RsaSecretEncryptor) textEncryptor).canDecrypt();
+		}
+
+	}
+
 	@ExceptionHandler(KeyFormatException.class)
 	public ResponseEntity<Map<String, Object>> keyFormat() {
 		Map<String, Object> body = new HashMap<>();
@@ -252,6 +440,14 @@ public class EncryptionController {
 		return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
 	}
 
+	@ExceptionHandler(InvalidBatchException.class)
+	public ResponseEntity<Map<String, Object>> invalidBatch() {
+		Map<String, Object> body = new HashMap<>();
+		body.put("status", "BAD_REQUEST");
+		body.put("description", "Batch data must be a JSON array or object of strings");
+		return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+	}
+
 	@ExceptionHandler(InvalidCipherException.class)
 	public ResponseEntity<Map<String, Object>> invalidCipher() {
 		Map<String, Object> body = new HashMap<>();
@@ -286,3 +482,8 @@ class InvalidCipherException extends RuntimeException {
 class DecryptionNotSupportedException extends RuntimeException {
 
 }
+
+@SuppressWarnings("serial")
+class InvalidBatchException extends RuntimeException {
+
+}
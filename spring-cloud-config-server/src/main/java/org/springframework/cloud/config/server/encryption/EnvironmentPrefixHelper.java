@@ -20,7 +20,6 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.springframework.security.crypto.encrypt.TextEncryptor;
-import org.springframework.util.StringUtils;
 
 /**
  * Shared helper class for encryption and decryption concerns where the plain text and
@@ -29,7 +28,8 @@ import org.springframework.util.StringUtils;
  * the caller, explicitly instead of by the input text strings. This is to support
  * independent decryptions using different cryptographic keys for different applications
  * and profiles, if needed (this class does not have any crypto features, but it can be
- * used by components that do).
+ * used by components that do). Prefixes are parsed by hand rather than with regular
+ * expressions, since this runs for every encrypted value of every request.
  *
  * @author Dave Syer
  *
@@ -53,6 +53,10 @@ class EnvironmentPrefixHelper {
 	 */
 	private static final String ESCAPE = "{plain}";
 
+	private static final String NAME_PREFIX = "{" + NAME + ":";
+
+	private static final String PROFILES_PREFIX = "{" + PROFILES + ":";
+
 	/**
 	 * Extract keys for looking up a {@link TextEncryptor} from the input text in the form
 	 * of a prefix of zero or many <code>{name:value}</code> pairs. The name and profiles
@@ -66,31 +70,44 @@ class EnvironmentPrefixHelper {
 
 		Map<String, String> keys = new LinkedHashMap<String, String>();
 
-		text = removeEnvironmentPrefix(text);
 		keys.put(NAME, name);
 		keys.put(PROFILES, profiles);
 
-		if (text.contains(ESCAPE)) {
-			text = text.substring(0, text.indexOf(ESCAPE));
+		if (text.indexOf('}') < 0) {
+			return keys;
 		}
 
-		String[] tokens = StringUtils.split(text, "}");
-		while (tokens != null) {
-			String token = tokens[0].trim();
-			if (token.startsWith("{")) {
-				String key = "";
-				String value = "";
-				if (token.contains(":") && !token.endsWith(":")) {
-					key = token.substring(1, token.indexOf(":"));
-					value = token.substring(token.indexOf(":") + 1);
+		text = removeEnvironmentPrefix(text);
+
+		int end = text.indexOf(ESCAPE);
+		if (end < 0) {
+			end = text.length();
+		}
+
+		int start = 0;
+		int close = text.indexOf('}');
+		while (close >= 0 && close < end) {
+			// each "}" terminates a token, only the ones in the form {key:value} or
+			// {key} are used
+			int tokenStart = start;
+			int tokenEnd = close;
+			while (tokenStart < tokenEnd && text.charAt(tokenStart) <= ' ') {
+				tokenStart++;
+			}
+			while (tokenEnd > tokenStart && text.charAt(tokenEnd - 1) <= ' ') {
+				tokenEnd--;
+			}
+			if (tokenStart < tokenEnd && text.charAt(tokenStart) == '{') {
+				int colon = text.indexOf(':', tokenStart);
+				if (colon >= 0 && colon < tokenEnd && text.charAt(tokenEnd - 1) != ':') {
+					keys.put(text.substring(tokenStart + 1, colon), text.substring(colon + 1, tokenEnd));
 				}
 				else {
-					key = token.substring(1);
+					keys.put(text.substring(tokenStart + 1, tokenEnd), "");
 				}
-				keys.put(key, value);
 			}
-			text = tokens[1];
-			tokens = StringUtils.split(text, "}");
+			start = close + 1;
+			close = text.indexOf('}', start);
 		}
 
 		return keys;
@@ -118,17 +135,86 @@ class EnvironmentPrefixHelper {
 	}
 
 	public String stripPrefix(String value) {
-		if (!value.contains("}")) {
-			return value;
+		return value.substring(getPayloadOffset(value));
+	}
+
+	/**
+	 * Returns the index of the first character after the <code>{name:value}</code>
+	 * prefixes (or the escape) of the input text.
+	 * @param value the input text
+	 * @return the offset of the payload in the input text
+	 */
+	int getPayloadOffset(String value) {
+		if (value.indexOf('}') < 0) {
+			return 0;
 		}
-		if (value.contains(ESCAPE)) {
-			return value.substring(value.indexOf(ESCAPE) + ESCAPE.length());
+		int escape = value.indexOf(ESCAPE);
+		if (escape >= 0) {
+			return escape + ESCAPE.length();
+		}
+		int offset = 0;
+		while (offset < value.length() && value.charAt(offset) == '{') {
+			int end = endOfPair(value, offset);
+			if (end < 0) {
+				break;
+			}
+			offset = end + 1;
+		}
+		return offset;
+	}
+
+	/**
+	 * Returns the index of the "}" closing the pair starting at the given index, that is
+	 * the first "}" after the first ":" on the same line, or -1 if there is none.
+	 */
+	private static int endOfPair(String value, int start) {
+		boolean colon = false;
+		for (int i = start + 1; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (isLineTerminator(c)) {
+				return -1;
+			}
+			if (!colon) {
+				colon = (c == ':');
+			}
+			else if (c == '}') {
+				return i;
+			}
 		}
-		return value.replaceFirst("^(\\{.*?:.*?\\})+", "");
+		return -1;
 	}
 
 	private String removeEnvironmentPrefix(String input) {
-		return input.replaceFirst("\\{name:.*\\}", "").replaceFirst("\\{profiles:.*\\}", "");
+		return removePair(removePair(input, NAME_PREFIX), PROFILES_PREFIX);
+	}
+
+	/**
+	 * Removes the first occurrence of the given pair prefix up to the last "}" on the
+	 * same line.
+	 */
+	private static String removePair(String input, String prefix) {
+		int start = input.indexOf(prefix);
+		while (start >= 0) {
+			int close = -1;
+			for (int i = start + prefix.length(); i < input.length(); i++) {
+				char c = input.charAt(i);
+				if (isLineTerminator(c)) {
+					break;
+				}
+				if (c == '}') {
+					close = i;
+				}
+			}
+			if (close >= 0) {
+				return input.substring(0, start) + input.substring(close + 1);
+			}
+			start = input.indexOf(prefix, start + 1);
+		}
+		return input;
+	}
+
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
 	}
 
 }
@@ -16,19 +16,26 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.security.crypto.encrypt.KeyStoreKeyFactory;
 import org.springframework.security.crypto.encrypt.RsaAlgorithm;
 import org.springframework.security.crypto.encrypt.RsaSecretEncryptor;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.util.Assert;
 
 /**
  * A {@link TextEncryptorLocator} that pulls RSA key pairs out of a keystore. The input
  * map can contain entries for "key" or "secret" or both, or neither. The secret in the
  * input map is not, in general, the secret in the keystore, but is dereferenced through a
  * {@link SecretLocator} (so for example you can keep a table of encrypted secrets and
- * update it separately to the keystore).
+ * update it separately to the keystore). Encryptors are cached per alias and resolved
+ * secret, so the key pair is only read from the keystore once; call
+ * {@link #invalidate()} (or {@link #setKeyStoreKeyFactory(KeyStoreKeyFactory)}) when the
+ * keystore changes.
  *
  * @author Dave Syer
  *
@@ -39,13 +46,35 @@ public class KeyStoreTextEncryptorLocator implements TextEncryptorLocator {
 
 	private final static String SECRET = "secret";
 
-	private KeyStoreKeyFactory keys;
+	/**
+	 * Default maximum number of cached encryptors for non default keys.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 100;
+
+	private volatile KeyStoreKeyFactory keys;
 
 	private String defaultSecret;
 
 	private String defaultAlias;
 
-	private RsaSecretEncryptor defaultEncryptor;
+	private volatile RsaSecretEncryptor defaultEncryptor;
+
+	private final Object defaultEncryptorMonitor = new Object();
+
+	private volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+	/**
+	 * Incremented (while holding the lock of the cache) whenever the cached encryptors
+	 * are discarded, so that encryptors built before are not added to the cache.
+	 */
+	private long generation;
+
+	private final Map<EncryptorKey, RsaSecretEncryptor> encryptors = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<EncryptorKey, RsaSecretEncryptor> eldest) {
+			return size() > KeyStoreTextEncryptorLocator.this.cacheSize;
+		}
+	};
 
 	private SecretLocator secretLocator = new PassthruSecretLocator();
 
@@ -66,18 +95,56 @@ public class KeyStoreTextEncryptorLocator implements TextEncryptorLocator {
 	 */
 	public void setSecretLocator(SecretLocator secretLocator) {
 		this.secretLocator = secretLocator;
+		invalidate();
 	}
 
 	public void setRsaAlgorithm(RsaAlgorithm rsaAlgorithm) {
 		this.rsaAlgorithm = rsaAlgorithm;
+		invalidate();
 	}
 
 	public void setStrong(boolean strong) {
 		this.strong = strong;
+		invalidate();
 	}
 
 	public void setSalt(String salt) {
 		this.salt = salt;
+		invalidate();
+	}
+
+	/**
+	 * Replaces the keystore the key pairs are read from, e.g. after it has been reloaded,
+	 * and discards all cached encryptors.
+	 * @param keys the new keystore
+	 */
+	public void setKeyStoreKeyFactory(KeyStoreKeyFactory keys) {
+		Assert.notNull(keys, "keys must not be null");
+		this.keys = keys;
+		invalidate();
+	}
+
+	/**
+	 * @param cacheSize the maximum number of cached encryptors for keys other than the
+	 * default one
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize > 0, "cacheSize must be greater than 0");
+		this.cacheSize = cacheSize;
+		invalidate();
+	}
+
+	/**
+	 * Discards all cached encryptors, so that key pairs are read from the keystore again.
+	 */
+	public void invalidate() {
+		synchronized (this.defaultEncryptorMonitor) {
+			this.defaultEncryptor = null;
+		}
+		synchronized (this.encryptors) {
+			this.encryptors.clear();
+			this.generation++;
+		}
 	}
 
 	@Override
@@ -85,19 +152,75 @@ public class KeyStoreTextEncryptorLocator implements TextEncryptorLocator {
 		String alias = keys.containsKey(KEY) ? keys.get(KEY) : this.defaultAlias;
 		String secret = keys.containsKey(SECRET) ? keys.get(SECRET) : this.defaultSecret;
 		if (alias.equals(this.defaultAlias) && secret.equals(this.defaultSecret)) {
-			if (this.defaultEncryptor == null) {
-				this.defaultEncryptor = rsaSecretEncryptor(alias, secret);
+			return defaultEncryptor();
+		}
+		char[] password = this.secretLocator.locate(secret);
+		EncryptorKey key = new EncryptorKey(alias, password);
+		RsaSecretEncryptor encryptor;
+		long generation;
+		synchronized (this.encryptors) {
+			encryptor = this.encryptors.get(key);
+			generation = this.generation;
+		}
+		if (encryptor == null) {
+			encryptor = rsaSecretEncryptor(alias, password);
+			synchronized (this.encryptors) {
+				// the keystore (or settings) may have changed while the encryptor was built
+				if (generation == this.generation) {
+					this.encryptors.put(key, encryptor);
+				}
 			}
-			return this.defaultEncryptor;
 		}
-		else {
-			return rsaSecretEncryptor(alias, secret);
+		return encryptor;
+	}
+
+	private RsaSecretEncryptor defaultEncryptor() {
+		RsaSecretEncryptor encryptor = this.defaultEncryptor;
+		if (encryptor == null) {
+			synchronized (this.defaultEncryptorMonitor) {
+				encryptor = this.defaultEncryptor;
+				if (encryptor == null) {
+					encryptor = rsaSecretEncryptor(this.defaultAlias, this.secretLocator.locate(this.defaultSecret));
+					this.defaultEncryptor = encryptor;
+				}
+			}
 		}
+		return encryptor;
 	}
 
-	private RsaSecretEncryptor rsaSecretEncryptor(String alias, String secret) {
-		return new RsaSecretEncryptor(this.keys.getKeyPair(alias, this.secretLocator.locate(secret)), this.rsaAlgorithm,
-				this.salt, this.strong);
+	private RsaSecretEncryptor rsaSecretEncryptor(String alias, char[] password) {
+		return new RsaSecretEncryptor(this.keys.getKeyPair(alias, password), this.rsaAlgorithm, this.salt,
+				this.strong);
+	}
+
+	private static final class EncryptorKey {
+
+		private final String alias;
+
+		private final char[] password;
+
+		private EncryptorKey(String alias, char[] password) {
+			this.alias = alias;
+			this.password = password.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			EncryptorKey other = (EncryptorKey) o;
+			return Objects.equals(this.alias, other.alias) && Arrays.equals(this.password, other.password);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Objects.hashCode(this.alias) + Arrays.hashCode(this.password);
+		}
+
 	}
 
 }
@@ -16,9 +16,14 @@
 
 package org.springframework.cloud.config.server.environment;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import io.micrometer.observation.ObservationRegistry;
@@ -43,6 +48,12 @@ public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccess
 
 	private final ObservationRegistry observationRegistry;
 
+	/**
+	 * Guards the working directory: reads of the files in it share the read lock, while
+	 * anything that changes it (fetch, checkout, merge) needs the write lock.
+	 */
+	private final ReadWriteLock workingDirectoryLock = new ReentrantReadWriteLock();
+
 	public AbstractScmEnvironmentRepository(ConfigurableEnvironment environment,
 			ObservationRegistry observationRegistry) {
 		super(environment);
@@ -57,12 +68,12 @@ public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccess
 	}
 
 	@Override
-	public synchronized Environment findOne(String application, String profile, String label) {
+	public Environment findOne(String application, String profile, String label) {
 		return findOne(application, profile, label, false);
 	}
 
 	@Override
-	public synchronized Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
 		var environment = new Environment(application, StringUtils.commaDelimitedListToStringArray(profile), label, "",
 				"");
 
@@ -72,17 +83,102 @@ public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccess
 			environment.setVersion(concat(e.getVersion(), environment.getVersion()));
 		}
 
-		return this.cleaner.clean(environment, getWorkingDirectory().toURI().toString(), getUri());
+		return environment;
 	}
 
 	private Environment findOneInternal(String application, String profile, String label, boolean includeOrigin) {
+		return doWithLocations(application, profile, label,
+				locations -> findOneInternal(locations, application, profile, includeOrigin));
+	}
+
+	/**
+	 * Passes the locations of the given label to the callback while holding the read lock
+	 * of the working directory, so that no other label is checked out before it returns.
+	 */
+	@Override
+	public <T> T withLocations(String application, String profile, String label, Function<Locations, T> callback) {
+		return doWithLocations(application, profile, label, callback);
+	}
+
+	@Override
+	public boolean changesFiles() {
+		return true;
+	}
+
+	private <T> T doWithLocations(String application, String profile, String label, Function<Locations, T> callback) {
+		Lock readLock = this.workingDirectoryLock.readLock();
+		readLock.lock();
+		try {
+			Locations locations = getCurrentLocations(application, profile, label);
+			if (locations != null) {
+				return callback.apply(locations);
+			}
+		}
+		finally {
+			readLock.unlock();
+		}
+		Locations locations;
+		Lock writeLock = this.workingDirectoryLock.writeLock();
+		writeLock.lock();
+		try {
+			locations = getLocations(application, profile, label);
+			// downgrade, so that no other label is checked out before the files are read
+			readLock.lock();
+		}
+		finally {
+			writeLock.unlock();
+		}
+		try {
+			return callback.apply(locations);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	private Environment findOneInternal(Locations locations, String application, String profile,
+			boolean includeOrigin) {
 		var delegate = new NativeEnvironmentRepository(getEnvironment(), new NativeEnvironmentProperties(),
 				this.observationRegistry);
-		var locations = getLocations(application, profile, label);
 		delegate.setSearchLocations(locations.getLocations());
 		var environment = delegate.findOne(application, profile, "", includeOrigin);
 		environment.setVersion(locations.getVersion());
-		return environment;
+		return this.cleaner.clean(environment, getWorkingDirectory(locations).toURI().toString(), getUri());
+	}
+
+	/**
+	 * Returns the locations of the given label if the working directory can be read as it
+	 * is, i.e. the label is already checked out and no refresh is due. Called while
+	 * holding the read lock of the working directory, so implementations must not modify
+	 * it. The default returns {@code null}, which makes every request go through
+	 * {@link #getLocations(String, String, String)} under the write lock.
+	 * @param application the application name
+	 * @param profile the profile name
+	 * @param label the label
+	 * @return the current locations, or {@code null} if the working directory needs to be
+	 * refreshed first
+	 */
+	protected Locations getCurrentLocations(String application, String profile, String label) {
+		return null;
+	}
+
+	/**
+	 * Returns the directory that the given locations point into, so that it can be
+	 * replaced by the repository uri in the names of the property sources. Defaults to the
+	 * working directory.
+	 * @param locations the locations returned by this repository
+	 * @return the directory containing the locations
+	 */
+	protected File getWorkingDirectory(Locations locations) {
+		return getWorkingDirectory();
+	}
+
+	/**
+	 * @return the lock guarding the working directory, shared by readers and held
+	 * exclusively while it is being refreshed
+	 */
+	protected ReadWriteLock getWorkingDirectoryLock() {
+		return this.workingDirectoryLock;
 	}
 
 	private List<String> splitAndReorder(String label) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.util.StringUtils;
+
+/**
+ * A delegating {@link EnvironmentRepository} that serves environments from an
+ * {@link EnvironmentCache}. If the delegate is a {@link SearchPathLocator} (e.g. a git
+ * repository, or a composite of repositories) its current version is resolved on every
+ * request, and cached entries are only served while that version is unchanged. Other
+ * repositories, and composites that guard their repositories with timeouts or circuit
+ * breakers, rely on the time to live of the cache entries. Environments are cached per
+ * request credentials (see {@link EnvironmentCache.Key}), so that values read with one
+ * Vault token are never served to a request with another. Stale environments served by
+ * an open circuit breaker are not cached.
+ *
+ * @since 4.3.0
+ */
+public class CachingEnvironmentRepository implements EnvironmentRepository {
+
+	private final EnvironmentRepository delegate;
+
+	private final EnvironmentCache cache;
+
+	public CachingEnvironmentRepository(EnvironmentRepository delegate, EnvironmentCache cache) {
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label) {
+		return findOne(application, profile, label, false);
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+		EnvironmentCache.Key key = EnvironmentCache.Key.forCurrentRequest(application, profile, label, includeOrigin);
+		String version = currentVersion(application, profile, label);
+		Environment environment = this.cache.get(key, version);
+		if (environment == null) {
+			environment = this.delegate.findOne(application, profile, label, includeOrigin);
+			if (environment == null) {
+				return null;
+			}
+			if (!CircuitBreakerEnvironmentRepository.STALE_STATE.equals(environment.getState())) {
+				this.cache.put(key, version, environment);
+			}
+		}
+		return Environments.shallowCopy(environment);
+	}
+
+	private String currentVersion(String application, String profile, String label) {
+		SearchPathLocator locator = getSearchPathLocator();
+		if (locator == null) {
+			return null;
+		}
+		String[] labels = StringUtils.commaDelimitedListToStringArray(label);
+		if (labels.length <= 1) {
+			return locator.getLocations(application, profile, label).getVersion();
+		}
+		StringBuilder version = new StringBuilder();
+		for (String l : labels) {
+			if (version.length() > 0) {
+				version.append(",");
+			}
+			version.append(locator.getLocations(application, profile, l).getVersion());
+		}
+		return version.toString();
+	}
+
+	private SearchPathLocator getSearchPathLocator() {
+		EnvironmentRepository repository = this.delegate;
+		if (repository instanceof CoalescingEnvironmentRepository coalescing) {
+			repository = coalescing.getDelegate();
+		}
+		if (repository instanceof ObservationEnvironmentRepositoryWrapper wrapper) {
+			repository = wrapper.getDelegate();
+		}
+		if (repository instanceof CompositeEnvironmentRepository composite && composite.isGuarded()) {
+			// resolving the locations would reach the repositories without their guards
+			return null;
+		}
+		if (repository instanceof SearchPathLocator locator) {
+			return locator;
+		}
+		return null;
+	}
+
+	public EnvironmentRepository getDelegate() {
+		return this.delegate;
+	}
+
+	public EnvironmentCache getCache() {
+		return this.cache;
+	}
+
+}
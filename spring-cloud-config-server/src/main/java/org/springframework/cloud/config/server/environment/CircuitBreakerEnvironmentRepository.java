@@ -0,0 +1,287 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link EnvironmentRepository} that stops calling its delegate after a number of
+ * consecutive failures. While the circuit is open, the last environment successfully
+ * fetched for a request with the same credentials is served instead, with its state set
+ * to {@link #STALE_STATE}, and one request per probe interval is let through to the
+ * delegate as a trial, closing the circuit once it succeeds.
+ *
+ * @since 4.3.0
+ */
+public class CircuitBreakerEnvironmentRepository implements EnvironmentRepository {
+
+	/**
+	 * State of environments served while the circuit is open.
+	 */
+	public static final String STALE_STATE = "stale";
+
+	private static final Log logger = LogFactory.getLog(CircuitBreakerEnvironmentRepository.class);
+
+	private final String name;
+
+	private final EnvironmentRepository delegate;
+
+	private final int failureThreshold;
+
+	private final Duration probeInterval;
+
+	private final Map<Key, Environment> lastKnownGood;
+
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private final AtomicLong staleCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final AtomicLong nextTrial = new AtomicLong();
+
+	private volatile boolean open;
+
+	private Duration slowCallDuration;
+
+	/**
+	 * Creates a new {@link CircuitBreakerEnvironmentRepository}.
+	 * @param name the name of the repository, used in logs, metrics and health details
+	 * @param delegate the repository to guard
+	 * @param failureThreshold the number of consecutive failures that open the circuit
+	 * @param probeInterval the time between trial requests passed to the delegate while
+	 * the circuit is open
+	 * @param maxSize the maximum number of environments to keep for when the circuit is
+	 * open
+	 */
+	public CircuitBreakerEnvironmentRepository(String name, EnvironmentRepository delegate, int failureThreshold,
+			Duration probeInterval, int maxSize) {
+		Assert.isTrue(failureThreshold > 0, "failureThreshold must be greater than 0");
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.name = name;
+		this.delegate = delegate;
+		this.failureThreshold = failureThreshold;
+		this.probeInterval = probeInterval;
+		this.lastKnownGood = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Environment> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label) {
+		return findOne(application, profile, label, false);
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+		// environments fetched with one credential (e.g. a Vault token) are never
+		// served to requests with another
+		Key key = new Key(application, profile, label, includeOrigin, RequestCredentials.current());
+		if (this.open && !tryTrial()) {
+			return fallback(key, null);
+		}
+		long start = System.nanoTime();
+		Environment environment;
+		try {
+			environment = this.delegate.findOne(application, profile, label, includeOrigin);
+		}
+		catch (RuntimeException e) {
+			if (isClientError(e)) {
+				throw e;
+			}
+			recordFailure();
+			if (this.open) {
+				return fallback(key, e);
+			}
+			throw e;
+		}
+		if (this.slowCallDuration != null && System.nanoTime() - start > this.slowCallDuration.toNanos()) {
+			recordFailure();
+		}
+		else {
+			this.failures.set(0);
+			if (this.open) {
+				close();
+			}
+		}
+		synchronized (this.lastKnownGood) {
+			this.lastKnownGood.put(key, environment);
+		}
+		return environment;
+	}
+
+	/**
+	 * Lets a single request through to the delegate once the probe interval since the
+	 * circuit opened (or since the last trial) has passed, so that the delegate is tried
+	 * with the credentials of a real request.
+	 */
+	private boolean tryTrial() {
+		long next = this.nextTrial.get();
+		long now = System.nanoTime();
+		return now - next >= 0 && this.nextTrial.compareAndSet(next, now + this.probeInterval.toNanos());
+	}
+
+	/**
+	 * Returns whether the delegate answered, but the request asked for something that
+	 * does not exist, which says nothing about the health of the delegate.
+	 */
+	private static boolean isClientError(RuntimeException e) {
+		return e instanceof NoSuchLabelException || e instanceof NoSuchRepositoryException
+				|| e instanceof EnvironmentNotFoundException || e instanceof InvalidEnvironmentRequestException;
+	}
+
+	private void recordFailure() {
+		if (this.failures.incrementAndGet() >= this.failureThreshold) {
+			open();
+		}
+	}
+
+	private Environment fallback(Key key, RuntimeException cause) {
+		Environment environment;
+		synchronized (this.lastKnownGood) {
+			environment = this.lastKnownGood.get(key);
+		}
+		if (environment == null) {
+			this.rejectedCount.incrementAndGet();
+			throw (cause != null) ? cause : new RepositoryException("Circuit breaker of " + this.name + " is open");
+		}
+		this.staleCount.incrementAndGet();
+		Environment stale = new Environment(environment);
+		stale.setState(STALE_STATE);
+		stale.addAll(environment.getPropertySources());
+		return stale;
+	}
+
+	private synchronized void open() {
+		if (this.open) {
+			return;
+		}
+		logger.warn("Opening circuit breaker of " + this.name + " after " + this.failures.get() + " failures");
+		this.nextTrial.set(System.nanoTime() + this.probeInterval.toNanos());
+		this.open = true;
+	}
+
+	private synchronized void close() {
+		if (!this.open) {
+			return;
+		}
+		logger.info("Closing circuit breaker of " + this.name);
+		this.open = false;
+	}
+
+	/**
+	 * Sets the duration after which a successful call of the delegate counts as a
+	 * failure, so that a repository that is slow rather than failing opens the circuit as
+	 * well.
+	 * @param slowCallDuration the duration, or {@code null} to count failed calls only
+	 */
+	public void setSlowCallDuration(Duration slowCallDuration) {
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public EnvironmentRepository getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * @return whether the circuit is open, i.e. the delegate is not called
+	 */
+	public boolean isOpen() {
+		return this.open;
+	}
+
+	/**
+	 * @return the number of stale environments served while the circuit was open
+	 */
+	public long getStaleCount() {
+		return this.staleCount.get();
+	}
+
+	/**
+	 * @return the number of requests that failed while the circuit was open, because no
+	 * environment was fetched for them before
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerEnvironmentRepository [" + this.name + "]";
+	}
+
+	private static final class Key {
+
+		private final String application;
+
+		private final String profile;
+
+		private final String label;
+
+		private final boolean includeOrigin;
+
+		private final String credentials;
+
+		private Key(String application, String profile, String label, boolean includeOrigin, String credentials) {
+			this.application = application;
+			this.profile = profile;
+			this.label = label;
+			this.includeOrigin = includeOrigin;
+			this.credentials = credentials;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key other = (Key) o;
+			return this.includeOrigin == other.includeOrigin && Objects.equals(this.application, other.application)
+					&& Objects.equals(this.profile, other.profile) && Objects.equals(this.label, other.label)
+					&& Objects.equals(this.credentials, other.credentials);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.application, this.profile, this.label, this.includeOrigin, this.credentials);
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import org.springframework.cloud.config.environment.Environment;
+
+/**
+ * A delegating {@link EnvironmentRepository} that coalesces identical concurrent
+ * requests with a {@link RequestCoalescer}, so that only one of them reaches the delegate
+ * (e.g. when many instances of an application start at the same time). Requests are
+ * identical if they are for the same application, profiles, label and include origin
+ * flag, and were made with the same credentials (e.g. the same Vault token).
+ *
+ * @since 4.3.0
+ */
+public class CoalescingEnvironmentRepository implements EnvironmentRepository {
+
+	private final EnvironmentRepository delegate;
+
+	private final RequestCoalescer coalescer;
+
+	public CoalescingEnvironmentRepository(EnvironmentRepository delegate, RequestCoalescer coalescer) {
+		this.delegate = delegate;
+		this.coalescer = coalescer;
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label) {
+		return findOne(application, profile, label, false);
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+		EnvironmentCache.Key key = EnvironmentCache.Key.forCurrentRequest(application, profile, label, includeOrigin);
+		Environment environment = this.coalescer.execute(key,
+				() -> this.delegate.findOne(application, profile, label, includeOrigin));
+		return (environment != null) ? Environments.shallowCopy(environment) : null;
+	}
+
+	public EnvironmentRepository getDelegate() {
+		return this.delegate;
+	}
+
+	public RequestCoalescer getCoalescer() {
+		return this.coalescer;
+	}
+
+}
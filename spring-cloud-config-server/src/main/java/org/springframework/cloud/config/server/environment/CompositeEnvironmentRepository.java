@@ -16,16 +16,34 @@
 
 package org.springframework.cloud.config.server.environment;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.core.OrderComparator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * An {@link EnvironmentRepository} composed of multiple ordered
@@ -33,7 +51,7 @@ import org.springframework.core.OrderComparator;
  *
  * @author Ryan Baxter
  */
-public class CompositeEnvironmentRepository implements EnvironmentRepository {
+public class CompositeEnvironmentRepository implements EnvironmentRepository, DisposableBean {
 
 	Log log = LogFactory.getLog(getClass());
 
@@ -41,6 +59,14 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 
 	protected boolean failOnError;
 
+	private final ObservationRegistry observationRegistry;
+
+	private volatile ExecutorService executor;
+
+	private Duration timeout;
+
+	private final Map<EnvironmentRepository, Duration> timeouts = Collections.synchronizedMap(new IdentityHashMap<>());
+
 	/**
 	 * Creates a new {@link CompositeEnvironmentRepository}.
 	 * @param environmentRepositories The list of {@link EnvironmentRepository}s to create
@@ -57,6 +83,7 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 					.map(e -> ObservationEnvironmentRepositoryWrapper.wrap(observationRegistry, e))
 					.collect(Collectors.toList());
 		this.failOnError = failOnError;
+		this.observationRegistry = observationRegistry;
 	}
 
 	/**
@@ -78,6 +105,7 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 	@Override
 	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
 		Environment env = new Environment(application, new String[] { profile }, label, null, null);
+		ExecutorService executor = this.executor;
 		if (this.environmentRepositories.size() == 1) {
 			Environment envRepo = this.environmentRepositories.get(0)
 				.findOne(application, profile, label, includeOrigin);
@@ -85,10 +113,13 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 			env.setVersion(envRepo.getVersion());
 			env.setState(envRepo.getState());
 		}
+		else if (executor != null) {
+			findAll(executor, env, application, profile, label, includeOrigin);
+		}
 		else {
 			for (EnvironmentRepository repo : environmentRepositories) {
 				try {
-					env.addAll(repo.findOne(application, profile, label, includeOrigin).getPropertySources());
+					add(env, repo.findOne(application, profile, label, includeOrigin));
 				}
 				catch (Exception e) {
 					if (failOnError) {
@@ -103,4 +134,220 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 		return env;
 	}
 
+	private void add(Environment env, Environment envRepo) {
+		env.addAll(envRepo.getPropertySources());
+		if (CircuitBreakerEnvironmentRepository.STALE_STATE.equals(envRepo.getState())) {
+			env.setState(CircuitBreakerEnvironmentRepository.STALE_STATE);
+		}
+	}
+
+	/**
+	 * Queries all repositories at the same time and adds their property sources in the
+	 * order of the repositories, waiting for each repository until its timeout (counted
+	 * from the start of all queries) expires. Queries that time out are interrupted, and
+	 * they see a snapshot of the request (without its body), since the request itself is
+	 * recycled once it completes.
+	 */
+	private void findAll(ExecutorService executor, Environment env, String application, String profile, String label,
+			boolean includeOrigin) {
+		Observation parent = this.observationRegistry.getCurrentObservation();
+		long start = System.nanoTime();
+		List<Future<Environment>> results = new ArrayList<>();
+		RequestAttributes requestAttributes = RequestCredentials.detachedRequestAttributes();
+		for (EnvironmentRepository repo : this.environmentRepositories) {
+			results.add(executor.submit(() -> {
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				try (Observation.Scope scope = (parent != null) ? parent.openScope() : null) {
+					return repo.findOne(application, profile, label, includeOrigin);
+				}
+				finally {
+					RequestContextHolder.resetRequestAttributes();
+				}
+			}));
+		}
+		for (int i = 0; i < results.size(); i++) {
+			EnvironmentRepository repo = this.environmentRepositories.get(i);
+			try {
+				add(env, await(results.get(i), repo, start));
+			}
+			catch (Exception e) {
+				if (failOnError) {
+					results.forEach(result -> result.cancel(true));
+					throw e;
+				}
+				else {
+					log.info("Error adding environment for " + repo);
+				}
+			}
+		}
+	}
+
+	private Environment await(Future<Environment> result, EnvironmentRepository repo, long start) {
+		Duration timeout = getTimeout(repo);
+		try {
+			if (timeout == null) {
+				return result.get();
+			}
+			long remaining = timeout.toNanos() - (System.nanoTime() - start);
+			return result.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			// interrupts the query, or drops it if it is still waiting for a thread
+			result.cancel(true);
+			throw new RepositoryException("Timed out after " + timeout + " finding environment in " + repo, e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new RepositoryException("Could not find environment in " + repo, e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.cancel(true);
+			throw new RepositoryException("Interrupted while finding environment in " + repo, e);
+		}
+	}
+
+	private Duration getTimeout(EnvironmentRepository repo) {
+		Duration timeout = this.timeouts.get(unwrap(repo));
+		return (timeout != null) ? timeout : this.timeout;
+	}
+
+	/**
+	 * Returns the repository wrapped by observations and circuit breakers of this
+	 * composite.
+	 */
+	static EnvironmentRepository unwrap(EnvironmentRepository repo) {
+		while (true) {
+			if (repo instanceof CircuitBreakerEnvironmentRepository circuitBreaker) {
+				repo = circuitBreaker.getDelegate();
+			}
+			else if (repo instanceof ObservationEnvironmentRepositoryWrapper wrapper) {
+				repo = wrapper.getDelegate();
+			}
+			else {
+				return repo;
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of threads used to query the repositories at the same time. The
+	 * property sources are added in the same order as when the repositories are queried
+	 * one after the other.
+	 * @param threads the number of threads, or 0 to query the repositories one after the
+	 * other on the calling thread
+	 * @since 4.3.0
+	 */
+	public void setThreads(int threads) {
+		Assert.isTrue(threads >= 0, "threads must not be negative");
+		ExecutorService previous = this.executor;
+		if (threads > 0) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("config-server-composite-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+		}
+		else {
+			this.executor = null;
+		}
+		if (previous != null) {
+			previous.shutdown();
+		}
+	}
+
+	/**
+	 * Sets the time to wait for each repository when the repositories are queried at the
+	 * same time (see {@link #setThreads(int)}). Repositories that take longer are treated
+	 * as failed.
+	 * @param timeout the timeout, or {@code null} to wait as long as it takes
+	 * @since 4.3.0
+	 */
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Sets the time to wait for the given repository, overriding
+	 * {@link #setTimeout(Duration)}.
+	 * @param repository one of the repositories of this composite
+	 * @param timeout the timeout, or {@code null} to use the default timeout
+	 * @since 4.3.0
+	 */
+	public void setTimeout(EnvironmentRepository repository, Duration timeout) {
+		if (timeout == null) {
+			this.timeouts.remove(repository);
+		}
+		else {
+			this.timeouts.put(repository, timeout);
+		}
+	}
+
+	/**
+	 * Guards each repository with a {@link CircuitBreakerEnvironmentRepository}, so that
+	 * the last environments fetched from a failing repository are served until it
+	 * recovers. Calls that take longer than the timeout of a repository (see
+	 * {@link #setTimeout(EnvironmentRepository, Duration)}) count as failures.
+	 * @param failureThreshold the number of consecutive failures that open a circuit
+	 * @param probeInterval the time between trial requests passed to a repository with an
+	 * open circuit
+	 * @param maxSize the maximum number of environments kept per repository
+	 * @param names the function providing the name of each repository, the short class
+	 * name of the repository is used if it returns {@code null}
+	 * @since 4.3.0
+	 */
+	public synchronized void enableCircuitBreakers(int failureThreshold, Duration probeInterval, int maxSize,
+			Function<EnvironmentRepository, String> names) {
+		List<EnvironmentRepository> repositories = new ArrayList<>();
+		for (EnvironmentRepository repo : this.environmentRepositories) {
+			if (!(repo instanceof CircuitBreakerEnvironmentRepository)) {
+				// the names are known for the repositories, not for their observation wrappers
+				String name = names.apply(unwrap(repo));
+				if (name == null) {
+					name = ClassUtils.getShortName(unwrap(repo).getClass());
+				}
+				CircuitBreakerEnvironmentRepository circuitBreaker = new CircuitBreakerEnvironmentRepository(name,
+						repo, failureThreshold, probeInterval, maxSize);
+				circuitBreaker.setSlowCallDuration(getTimeout(repo));
+				repo = circuitBreaker;
+			}
+			repositories.add(repo);
+		}
+		this.environmentRepositories = repositories;
+	}
+
+	/**
+	 * @return the circuit breakers guarding the repositories, empty unless enabled
+	 * @since 4.3.0
+	 */
+	public List<CircuitBreakerEnvironmentRepository> getCircuitBreakers() {
+		List<CircuitBreakerEnvironmentRepository> circuitBreakers = new ArrayList<>();
+		for (EnvironmentRepository repo : this.environmentRepositories) {
+			if (repo instanceof CircuitBreakerEnvironmentRepository circuitBreaker) {
+				circuitBreakers.add(circuitBreaker);
+			}
+		}
+		return circuitBreakers;
+	}
+
+	/**
+	 * Whether the repositories are queried at the same time, with timeouts or behind
+	 * circuit breakers, i.e. whether calling them directly (e.g. to resolve their
+	 * locations) would bypass the guards of this composite.
+	 */
+	boolean isGuarded() {
+		return this.executor != null || this.timeout != null || !this.timeouts.isEmpty()
+				|| !getCircuitBreakers().isEmpty();
+	}
+
+	@Override
+	public void destroy() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+	}
+
 }
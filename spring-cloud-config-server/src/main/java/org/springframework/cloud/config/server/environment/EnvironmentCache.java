@@ -0,0 +1,294 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.util.Assert;
+
+/**
+ * Cache of {@link Environment} instances used by {@link CachingEnvironmentRepository}.
+ * Entries are keyed by application, profiles, label, the include origin flag and the
+ * credentials of the request (e.g. a Vault token), and are only served while the version
+ * they were created for is still the current version of the backing repository.
+ *
+ * @since 4.3.0
+ */
+public interface EnvironmentCache {
+
+	/**
+	 * Returns the cached environment for the given key, or {@code null} if there is no
+	 * entry, the entry has expired or it was created for a different version.
+	 * @param key the cache key
+	 * @param version the current version of the backing repository (may be null if the
+	 * repository is not versioned)
+	 * @return the cached environment or null
+	 */
+	Environment get(Key key, String version);
+
+	/**
+	 * Stores an environment for the given key and version.
+	 * @param key the cache key
+	 * @param version the version of the backing repository the environment was read from
+	 * @param environment the environment to cache
+	 */
+	void put(Key key, String version, Environment environment);
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	void clear();
+
+	/**
+	 * @return the number of entries currently in the cache
+	 */
+	int size();
+
+	/**
+	 * @return the number of lookups that returned a cached environment
+	 */
+	long getHitCount();
+
+	/**
+	 * @return the number of lookups that did not return a cached environment
+	 */
+	long getMissCount();
+
+	/**
+	 * @return the number of entries removed because of size, expiry or version change
+	 */
+	long getEvictionCount();
+
+	/**
+	 * Cache key for an {@link Environment} request.
+	 */
+	final class Key {
+
+		private final String application;
+
+		private final String profile;
+
+		private final String label;
+
+		private final boolean includeOrigin;
+
+		private final String credentials;
+
+		public Key(String application, String profile, String label, boolean includeOrigin) {
+			this(application, profile, label, includeOrigin, null);
+		}
+
+		/**
+		 * Creates a key for a request made with the given credentials.
+		 * @param application the application name
+		 * @param profile the profiles
+		 * @param label the label
+		 * @param includeOrigin whether the origin of the values is included
+		 * @param credentials a digest of the credentials of the request, or {@code null}
+		 * if it has none
+		 */
+		public Key(String application, String profile, String label, boolean includeOrigin, String credentials) {
+			this.application = application;
+			this.profile = profile;
+			this.label = label;
+			this.includeOrigin = includeOrigin;
+			this.credentials = credentials;
+		}
+
+		/**
+		 * Creates a key for the current request, including its credentials.
+		 * @param application the application name
+		 * @param profile the profiles
+		 * @param label the label
+		 * @param includeOrigin whether the origin of the values is included
+		 * @return the key
+		 */
+		public static Key forCurrentRequest(String application, String profile, String label,
+				boolean includeOrigin) {
+			return new Key(application, profile, label, includeOrigin, RequestCredentials.current());
+		}
+
+		public String getApplication() {
+			return this.application;
+		}
+
+		public String getProfile() {
+			return this.profile;
+		}
+
+		public String getLabel() {
+			return this.label;
+		}
+
+		public boolean isIncludeOrigin() {
+			return this.includeOrigin;
+		}
+
+		public String getCredentials() {
+			return this.credentials;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key other = (Key) o;
+			return this.includeOrigin == other.includeOrigin && Objects.equals(this.application, other.application)
+					&& Objects.equals(this.profile, other.profile) && Objects.equals(this.label, other.label)
+					&& Objects.equals(this.credentials, other.credentials);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.application, this.profile, this.label, this.includeOrigin, this.credentials);
+		}
+
+		@Override
+		public String toString() {
+			return "Key [application=" + this.application + ", profile=" + this.profile + ", label=" + this.label
+					+ ", includeOrigin=" + this.includeOrigin + "]";
+		}
+
+	}
+
+	/**
+	 * Default implementation of the {@link EnvironmentCache}: a size bounded, least
+	 * recently used map whose entries expire after a fixed time to live.
+	 */
+	class Default implements EnvironmentCache {
+
+		private final int maxSize;
+
+		private final long timeToLive;
+
+		private final AtomicLong hits = new AtomicLong();
+
+		private final AtomicLong misses = new AtomicLong();
+
+		private final AtomicLong evictions = new AtomicLong();
+
+		private final Map<Key, Entry> entries;
+
+		public Default(int maxSize, Duration timeToLive) {
+			Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+			Assert.notNull(timeToLive, "timeToLive must not be null");
+			this.maxSize = maxSize;
+			this.timeToLive = timeToLive.toMillis();
+			this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+					if (size() > Default.this.maxSize) {
+						Default.this.evictions.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		@Override
+		public Environment get(Key key, String version) {
+			Entry entry;
+			synchronized (this.entries) {
+				entry = this.entries.get(key);
+				if (entry != null && !entry.isValid(version, now())) {
+					this.entries.remove(key);
+					this.evictions.incrementAndGet();
+					entry = null;
+				}
+			}
+			if (entry == null) {
+				this.misses.incrementAndGet();
+				return null;
+			}
+			this.hits.incrementAndGet();
+			return entry.environment;
+		}
+
+		@Override
+		public void put(Key key, String version, Environment environment) {
+			Entry entry = new Entry(version, environment, now() + this.timeToLive);
+			synchronized (this.entries) {
+				this.entries.put(key, entry);
+			}
+		}
+
+		@Override
+		public void clear() {
+			synchronized (this.entries) {
+				this.entries.clear();
+			}
+		}
+
+		@Override
+		public int size() {
+			synchronized (this.entries) {
+				return this.entries.size();
+			}
+		}
+
+		@Override
+		public long getHitCount() {
+			return this.hits.get();
+		}
+
+		@Override
+		public long getMissCount() {
+			return this.misses.get();
+		}
+
+		@Override
+		public long getEvictionCount() {
+			return this.evictions.get();
+		}
+
+		protected long now() {
+			return System.currentTimeMillis();
+		}
+
+		private static final class Entry {
+
+			private final String version;
+
+			private final Environment environment;
+
+			private final long expiresAt;
+
+			private Entry(String version, Environment environment, long expiresAt) {
+				this.version = version;
+				this.environment = environment;
+				this.expiresAt = expiresAt;
+			}
+
+			private boolean isValid(String currentVersion, long now) {
+				return now < this.expiresAt && Objects.equals(this.version, currentVersion);
+			}
+
+		}
+
+	}
+
+}
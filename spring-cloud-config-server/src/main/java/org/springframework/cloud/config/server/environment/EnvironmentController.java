@@ -16,26 +16,42 @@
 
 package org.springframework.cloud.config.server.environment;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.DumperOptions.FlowStyle;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
 import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+import org.yaml.snakeyaml.resolver.Resolver;
 
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.EnvironmentMediaType;
 import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.environment.PropertyValueDescriptor;
+import org.springframework.cloud.config.server.support.EnvironmentPlaceholderResolver;
 import org.springframework.cloud.config.server.support.PathUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -48,9 +64,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.prepareEnvironment;
-import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.resolvePlaceholders;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * @author Dave Syer
@@ -70,6 +84,12 @@ public class EnvironmentController {
 
 	private static final Log LOG = LogFactory.getLog(EnvironmentController.class);
 
+	/**
+	 * The renderings are written as UTF-8, so clients must not fall back to another
+	 * charset for text.
+	 */
+	private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
 	private EnvironmentRepository repository;
 
 	private ObjectMapper objectMapper;
@@ -106,25 +126,44 @@ public class EnvironmentController {
 
 	@GetMapping(path = "/{name}/{profiles:(?!.*\\b\\.(?:ya?ml|properties|json)\\b).*}",
 			produces = MediaType.APPLICATION_JSON_VALUE)
-	public Environment defaultLabel(@PathVariable String name, @PathVariable String profiles) {
-		return getEnvironment(name, profiles, null, false);
+	public Environment defaultLabel(@PathVariable String name, @PathVariable String profiles,
+			ServletWebRequest request) {
+		return notModifiedOrEnvironment(request, getEnvironment(name, profiles, null, false), "json");
+	}
+
+	public Environment defaultLabel(String name, String profiles) {
+		return defaultLabel(name, profiles, null);
 	}
 
 	@GetMapping(path = "/{name}/{profiles:(?!.*\\b\\.(?:ya?ml|properties|json)\\b).*}",
 			produces = EnvironmentMediaType.V2_JSON)
-	public Environment defaultLabelIncludeOrigin(@PathVariable String name, @PathVariable String profiles) {
-		return getEnvironment(name, profiles, null, true);
+	public Environment defaultLabelIncludeOrigin(@PathVariable String name, @PathVariable String profiles,
+			ServletWebRequest request) {
+		return notModifiedOrEnvironment(request, getEnvironment(name, profiles, null, true), "json-v2");
+	}
+
+	public Environment defaultLabelIncludeOrigin(String name, String profiles) {
+		return defaultLabelIncludeOrigin(name, profiles, null);
 	}
 
 	@GetMapping(path = "/{name}/{profiles}/{label:.*}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public Environment labelled(@PathVariable String name, @PathVariable String profiles, @PathVariable String label) {
-		return getEnvironment(name, profiles, label, false);
+	public Environment labelled(@PathVariable String name, @PathVariable String profiles, @PathVariable String label,
+			ServletWebRequest request) {
+		return notModifiedOrEnvironment(request, getEnvironment(name, profiles, label, false), "json");
+	}
+
+	public Environment labelled(String name, String profiles, String label) {
+		return labelled(name, profiles, label, null);
 	}
 
 	@GetMapping(path = "/{name}/{profiles}/{label:.*}", produces = EnvironmentMediaType.V2_JSON)
 	public Environment labelledIncludeOrigin(@PathVariable String name, @PathVariable String profiles,
-			@PathVariable String label) {
-		return getEnvironment(name, profiles, label, true);
+			@PathVariable String label, ServletWebRequest request) {
+		return notModifiedOrEnvironment(request, getEnvironment(name, profiles, label, true), "json-v2");
+	}
+
+	public Environment labelledIncludeOrigin(String name, String profiles, String label) {
+		return labelledIncludeOrigin(name, profiles, label, null);
 	}
 
 	public Environment getEnvironment(String name, String profiles, String label, boolean includeOrigin) {
@@ -153,105 +192,271 @@ public class EnvironmentController {
 
 	@GetMapping("/{name}-{profiles}.properties")
 	public ResponseEntity<String> properties(@PathVariable String name, @PathVariable String profiles,
-        	@RequestParam(defaultValue = "true") boolean resolvePlaceholders) throws IOException {
-    	return propertiesInternal(name, profiles, null, resolvePlaceholders);
+			@RequestParam(defaultValue = "true") boolean resolvePlaceholders, ServletWebRequest request)
+			throws IOException {
+		return propertiesInternal(name, profiles, null, resolvePlaceholders, request);
+	}
+
+	public ResponseEntity<String> properties(String name, String profiles, boolean resolvePlaceholders)
+			throws IOException {
+		return properties(name, profiles, resolvePlaceholders, null);
 	}
 
 	@GetMapping("/{label}/{name}-{profiles}.properties")
 	public ResponseEntity<String> labelledProperties(@PathVariable String name, @PathVariable String profiles,
-        	@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders)
-        	throws IOException {
-    	return propertiesInternal(name, profiles, label, resolvePlaceholders);
+			@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders,
+			ServletWebRequest request) throws IOException {
+		return propertiesInternal(name, profiles, label, resolvePlaceholders, request);
+	}
+
+	public ResponseEntity<String> labelledProperties(String name, String profiles, String label,
+			boolean resolvePlaceholders) throws IOException {
+		return labelledProperties(name, profiles, label, resolvePlaceholders, null);
 	}
 
 	// Private method used by both
-	private ResponseEntity<String> propertiesInternal(String name, String profiles, String label, boolean resolve)
-        	throws IOException {
-    	validateProfiles(profiles);
-    	Environment environment = labelled(name, profiles, label);
-    	Map<String, Object> props = convertToProperties(environment);
-    	String result = getPropertiesString(props);
-    	if (resolve) {
-        	result = resolvePlaceholders(prepareEnvironment(environment), result);
-    	}
-    	return getSuccess(result);
+	private ResponseEntity<String> propertiesInternal(String name, String profiles, String label, boolean resolve,
+			ServletWebRequest request) throws IOException {
+		validateProfiles(profiles);
+		Environment environment = labelled(name, profiles, label);
+		if (checkNotModified(request, environment, resolve ? "properties" : "properties-raw")) {
+			return null;
+		}
+		Map<String, Object> properties = convertToProperties(environment);
+		Map<String, Object> result = resolve ? resolvePlaceholders(properties, environment, false) : properties;
+		return render(request, TEXT_PLAIN_UTF8, writer -> writeProperties(result, writer));
 	}
 
 	@GetMapping("{name}-{profiles}.json")
 	public ResponseEntity<String> jsonProperties(@PathVariable String name, @PathVariable String profiles,
-			@RequestParam(defaultValue = "true") boolean resolvePlaceholders) throws Exception {
-		return labelledJsonProperties(name, profiles, null, resolvePlaceholders);
+			@RequestParam(defaultValue = "true") boolean resolvePlaceholders, ServletWebRequest request)
+			throws Exception {
+		return labelledJsonProperties(name, profiles, null, resolvePlaceholders, request);
+	}
+
+	public ResponseEntity<String> jsonProperties(String name, String profiles, boolean resolvePlaceholders)
+			throws Exception {
+		return jsonProperties(name, profiles, resolvePlaceholders, null);
 	}
 
 	@GetMapping("/{label}/{name}-{profiles}.json")
 	public ResponseEntity<String> labelledJsonProperties(@PathVariable String name, @PathVariable String profiles,
-			@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders)
-			throws Exception {
+			@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders,
+			ServletWebRequest request) throws Exception {
 		validateProfiles(profiles);
 		Environment environment = labelled(name, profiles, label);
-		Map<String, Object> properties = convertToMap(environment);
-		String json = this.objectMapper.writeValueAsString(properties);
+		if (checkNotModified(request, environment, resolvePlaceholders ? "json-properties" : "json-properties-raw")) {
+			return null;
+		}
+		Map<String, Object> properties = convertToProperties(environment);
 		if (resolvePlaceholders) {
-			json = resolvePlaceholders(prepareEnvironment(environment), json);
+			properties = resolvePlaceholders(properties, environment, false);
 		}
-		return getSuccess(json, MediaType.APPLICATION_JSON);
+		Map<String, Object> json = convertToMap(properties);
+		return render(request, MediaType.APPLICATION_JSON, writer -> this.objectMapper.writer()
+			.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+			.writeValue(writer, json));
 	}
 
-	private static final int EMPTY_LENGTH = 0;
+	public ResponseEntity<String> labelledJsonProperties(String name, String profiles, String label,
+			boolean resolvePlaceholders) throws Exception {
+		return labelledJsonProperties(name, profiles, label, resolvePlaceholders, null);
+	}
 
-	private String getPropertiesString(Map<String, Object> properties) {
-		StringBuilder output = new StringBuilder();
+	private void writeProperties(Map<String, Object> properties, Writer writer) throws IOException {
+		boolean first = true;
 		for (Entry<String, Object> entry : properties.entrySet()) {
-			if (output.length() > EMPTY_LENGTH) {
-				output.append("\n");
+			if (!first) {
+				writer.write("\n");
 			}
-			output.append(entry.getKey()).append(": ").append(entry.getValue());
+			writer.write(entry.getKey());
+			writer.write(": ");
+			writer.write(String.valueOf(entry.getValue()));
+			first = false;
 		}
-		return output.toString();
 	}
 
 	@GetMapping({ "/{name}-{profiles}.yml", "/{name}-{profiles}.yaml" })
 	public ResponseEntity<String> yaml(@PathVariable String name, @PathVariable String profiles,
-			@RequestParam(defaultValue = "true") boolean resolvePlaceholders) throws Exception {
-		return labelledYaml(name, profiles, null, resolvePlaceholders);
+			@RequestParam(defaultValue = "true") boolean resolvePlaceholders, ServletWebRequest request)
+			throws Exception {
+		return labelledYaml(name, profiles, null, resolvePlaceholders, request);
+	}
+
+	public ResponseEntity<String> yaml(String name, String profiles, boolean resolvePlaceholders) throws Exception {
+		return yaml(name, profiles, resolvePlaceholders, null);
 	}
 
 	@GetMapping({ "/{label}/{name}-{profiles}.yml", "/{label}/{name}-{profiles}.yaml" })
 	public ResponseEntity<String> labelledYaml(@PathVariable String name, @PathVariable String profiles,
-			@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders)
-			throws Exception {
+			@PathVariable String label, @RequestParam(defaultValue = "true") boolean resolvePlaceholders,
+			ServletWebRequest request) throws Exception {
 		validateProfiles(profiles);
 		Environment environment = labelled(name, profiles, label);
-		Map<String, Object> result = convertToMap(environment);
+		if (checkNotModified(request, environment, resolvePlaceholders ? "yaml" : "yaml-raw")) {
+			return null;
+		}
+		Map<String, Object> properties = convertToProperties(environment);
+		if (resolvePlaceholders) {
+			properties = resolvePlaceholders(properties, environment, true);
+		}
+		Map<String, Object> result = convertToMap(properties);
+		Yaml yaml = yaml();
 		if (this.stripDocument && result.size() == 1 && result.keySet().iterator().next().equals("document")) {
 			Object value = result.get("document");
-			if (value instanceof Collection) {
-				return getSuccess(new Yaml().dumpAs(value, Tag.SEQ, FlowStyle.BLOCK));
-			}
-			else {
-				return getSuccess(new Yaml().dumpAs(value, Tag.STR, FlowStyle.BLOCK));
+			// the same as Yaml.dumpAs(value, tag, BLOCK), without building the whole
+			// document in memory
+			Node node = yaml.represent(value);
+			node.setTag((value instanceof Collection) ? Tag.SEQ : Tag.STR);
+			return render(request, TEXT_PLAIN_UTF8, writer -> yaml.serialize(node, writer));
+		}
+		return render(request, TEXT_PLAIN_UTF8, writer -> yaml.dump(result, writer));
+	}
+
+	public ResponseEntity<String> labelledYaml(String name, String profiles, String label, boolean resolvePlaceholders)
+			throws Exception {
+		return labelledYaml(name, profiles, label, resolvePlaceholders, null);
+	}
+
+	private Yaml yaml() {
+		DumperOptions options = new DumperOptions();
+		options.setDefaultFlowStyle(FlowStyle.BLOCK);
+		return new Yaml(new ResolvedValueRepresenter(options), options);
+	}
+
+	/**
+	 * Resolves placeholders in the keys and values of the given properties, against the
+	 * property sources of the environment.
+	 * @param properties the properties to resolve
+	 * @param environment the environment the properties come from
+	 * @param yaml whether the properties are rendered as YAML, where resolved values are
+	 * typed by their content (e.g. a placeholder resolving to a number renders as a
+	 * number)
+	 * @return the resolved properties, in the same order
+	 */
+	private Map<String, Object> resolvePlaceholders(Map<String, Object> properties, Environment environment,
+			boolean yaml) {
+		EnvironmentPlaceholderResolver resolver = null;
+		Map<String, Object> resolved = new LinkedHashMap<>();
+		for (Entry<String, Object> entry : properties.entrySet()) {
+			String key = entry.getKey();
+			Object value = entry.getValue();
+			if (key.contains("${") || (value instanceof String text && text.contains("${"))) {
+				if (resolver == null) {
+					resolver = new EnvironmentPlaceholderResolver(environment);
+				}
+				key = resolver.resolvePlaceholders(key);
+				if (value instanceof String text && text.contains("${")) {
+					String resolvedText = resolver.resolvePlaceholders(text);
+					value = yaml ? new ResolvedValue(resolvedText) : resolvedText;
+				}
 			}
+			resolved.put(key, value);
 		}
-		String yaml = new Yaml().dumpAsMap(result);
+		return resolved;
+	}
 
-		if (resolvePlaceholders) {
-			yaml = resolvePlaceholders(prepareEnvironment(environment), yaml);
+	/**
+	 * Writes a rendering of an environment straight to the response, or into the body of
+	 * the returned entity when there is no response (i.e. when not called through MVC).
+	 */
+	private ResponseEntity<String> render(ServletWebRequest request, MediaType mediaType, Renderer renderer)
+			throws IOException {
+		HttpServletResponse response = (request != null) ? request.getResponse() : null;
+		if (response == null) {
+			StringWriter writer = new StringWriter();
+			renderer.render(writer);
+			return getSuccess(writer.toString(), mediaType);
 		}
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(mediaType.toString());
+		Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		renderer.render(writer);
+		writer.flush();
+		return null;
+	}
 
-		return getSuccess(yaml);
+	private Environment notModifiedOrEnvironment(ServletWebRequest request, Environment environment,
+			String representation) {
+		return checkNotModified(request, environment, representation) ? null : environment;
 	}
 
 	/**
-	 * Method {@code convertToMap} converts an {@code Environment} to a nested Map which
-	 * represents a yml/json structure.
-	 * @param input the environment to be converted
-	 * @return the nested map containing the environment's properties
+	 * Checks the request against a strong ETag of the environment (and sets the ETag
+	 * header on the response).
+	 * @param request the current request (null when not called through MVC)
+	 * @param environment the environment to render
+	 * @param representation the rendering of the environment, so that each rendering has
+	 * its own ETag
+	 * @return true if the client copy is up to date and the response is a 304
 	 */
-	private Map<String, Object> convertToMap(Environment input) {
-		// First use the current convertToProperties to get a flat Map from the
-		// environment
-		Map<String, Object> properties = convertToProperties(input);
+	private boolean checkNotModified(ServletWebRequest request, Environment environment, String representation) {
+		if (request == null || environment == null) {
+			return false;
+		}
+		return request.checkNotModified(etag(environment, representation));
+	}
 
+	/**
+	 * Computes a strong ETag from the version of the environment and a digest of its
+	 * property sources.
+	 * @param environment the environment
+	 * @param representation the rendering of the environment
+	 * @return the quoted ETag
+	 */
+	static String etag(Environment environment, String representation) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"MD5\"", e);
+		}
+		update(digest, representation);
+		update(digest, environment.getName());
+		if (environment.getProfiles() != null) {
+			for (String profile : environment.getProfiles()) {
+				update(digest, profile);
+			}
+		}
+		update(digest, environment.getLabel());
+		update(digest, environment.getVersion());
+		update(digest, environment.getState());
+		for (PropertySource source : environment.getPropertySources()) {
+			update(digest, source.getName());
+			for (Map.Entry<?, ?> entry : source.getSource().entrySet()) {
+				update(digest, entry.getKey());
+				Object value = entry.getValue();
+				if (value instanceof PropertyValueDescriptor descriptor) {
+					update(digest, descriptor.getValue());
+					update(digest, descriptor.getOrigin());
+				}
+				else {
+					update(digest, value);
+				}
+			}
+		}
+		return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+	}
+
+	private static void update(MessageDigest digest, Object value) {
+		if (value == null) {
+			digest.update((byte) 1);
+		}
+		else {
+			digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		// separator so that adjacent values cannot run into each other
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Method {@code convertToMap} converts the flat properties of an {@code Environment}
+	 * to a nested Map which represents a yml/json structure.
+	 * @param properties the properties to be converted
+	 * @return the nested map containing the environment's properties
+	 */
+	private Map<String, Object> convertToMap(Map<String, Object> properties) {
 		// The root map which holds all the first level properties
 		Map<String, Object> rootMap = new LinkedHashMap<>();
 		for (Map.Entry<String, Object> entry : properties.entrySet()) {
@@ -291,10 +496,6 @@ public class EnvironmentController {
 		return httpHeaders;
 	}
 
-	private ResponseEntity<String> getSuccess(String body) {
-		return new ResponseEntity<>(body, getHttpHeaders(MediaType.TEXT_PLAIN), HttpStatus.OK);
-	}
-
 	private ResponseEntity<String> getSuccess(String body, MediaType mediaType) {
 		return new ResponseEntity<>(body, getHttpHeaders(mediaType), HttpStatus.OK);
 	}
@@ -336,6 +537,41 @@ public class EnvironmentController {
 		propertiesMap.keySet().removeIf(key -> key.equals("spring.profiles"));
 	}
 
+	@FunctionalInterface
+	private interface Renderer {
+
+		void render(Writer writer) throws IOException;
+
+	}
+
+	/**
+	 * A value with resolved placeholders, rendered in YAML with the type its content
+	 * implies (as if the placeholder had been replaced in the YAML text).
+	 */
+	private static final class ResolvedValue {
+
+		private final String value;
+
+		private ResolvedValue(String value) {
+			this.value = value;
+		}
+
+	}
+
+	private static final class ResolvedValueRepresenter extends Representer {
+
+		private final Resolver resolver = new Resolver();
+
+		private ResolvedValueRepresenter(DumperOptions options) {
+			super(options);
+			this.representers.put(ResolvedValue.class, data -> {
+				String value = ((ResolvedValue) data).value;
+				return representScalar(this.resolver.resolve(NodeId.scalar, value, true), value);
+			});
+		}
+
+	}
+
 	/**
 	 * Class {@code PropertyNavigator} is used to navigate through the property key and
 	 * create necessary Maps and Lists making up the nested structure to finally set the
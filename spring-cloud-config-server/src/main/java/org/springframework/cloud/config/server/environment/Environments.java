@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import org.springframework.cloud.config.environment.Environment;
+
+/**
+ * Helpers for environments that are shared between requests, e.g. by caches and
+ * coalescers.
+ *
+ * @since 4.3.0
+ */
+final class Environments {
+
+	private Environments() {
+	}
+
+	/**
+	 * Returns a shallow copy of the given environment for one caller. Callers further up
+	 * the chain (e.g. overrides) add, remove and reorder property sources, so each caller
+	 * gets its own list. The property sources themselves (and the maps of their values)
+	 * are shared with the original environment and must not be modified.
+	 * @param environment the shared environment
+	 * @return a copy with its own list of the same property sources
+	 */
+	static Environment shallowCopy(Environment environment) {
+		Environment copy = new Environment(environment);
+		copy.addAll(environment.getPropertySources());
+		return copy;
+	}
+
+}
@@ -90,6 +90,27 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties
 	 */
 	private int refreshRate = 0;
 
+	/**
+	 * Flag to indicate that configuration should be served from immutable per-commit
+	 * snapshots read directly from the git object database, instead of checking out each
+	 * requested label in the working directory.
+	 */
+	private boolean serveFromSnapshots = false;
+
+	/**
+	 * Maximum number of labels for which a snapshot is kept if serveFromSnapshots is
+	 * true. The snapshot of the least recently requested label is deleted when a snapshot
+	 * for another label is created.
+	 */
+	private int snapshotCacheSize = 20;
+
+	/**
+	 * Flag to indicate that the repository should be fetched by a background task every
+	 * refreshRate seconds, so that requests never wait for a fetch and are served from the
+	 * last fetched state. Only used if refreshRate is positive.
+	 */
+	private boolean refreshInBackground = false;
+
 	/**
 	 * Valid SSH private key. Must be set if ignoreLocalSshSettings is true and Git URI is
 	 * SSH format.
@@ -189,6 +210,30 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties
 		this.refreshRate = refreshRate;
 	}
 
+	public boolean isServeFromSnapshots() {
+		return this.serveFromSnapshots;
+	}
+
+	public void setServeFromSnapshots(boolean serveFromSnapshots) {
+		this.serveFromSnapshots = serveFromSnapshots;
+	}
+
+	public int getSnapshotCacheSize() {
+		return this.snapshotCacheSize;
+	}
+
+	public void setSnapshotCacheSize(int snapshotCacheSize) {
+		this.snapshotCacheSize = snapshotCacheSize;
+	}
+
+	public boolean isRefreshInBackground() {
+		return this.refreshInBackground;
+	}
+
+	public void setRefreshInBackground(boolean refreshInBackground) {
+		this.refreshInBackground = refreshInBackground;
+	}
+
 	public String getPrivateKey() {
 		return this.privateKey;
 	}
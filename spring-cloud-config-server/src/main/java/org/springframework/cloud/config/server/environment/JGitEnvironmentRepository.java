@@ -18,12 +18,23 @@ package org.springframework.cloud.config.server.environment;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import io.micrometer.observation.ObservationRegistry;
 import org.eclipse.jgit.api.CheckoutCommand;
@@ -47,18 +58,26 @@ import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.errors.NoRemoteRepositoryException;
 import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.ReceiveCommand;
 import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.FileUtils;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cloud.config.server.support.GitCredentialsProviderFactory;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.io.UrlResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
@@ -79,7 +98,7 @@ import static org.eclipse.jgit.transport.ReceiveCommand.Type.DELETE;
  * @author ChaoDong Xi
  */
 public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
-		implements EnvironmentRepository, SearchPathLocator, InitializingBean {
+		implements EnvironmentRepository, SearchPathLocator, InitializingBean, DisposableBean {
 
 	/**
 	 * Error message for URI for git repo.
@@ -104,7 +123,61 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	/**
 	 * Time of the last refresh of the git repository.
 	 */
-	private long lastRefresh;
+	private volatile long lastRefresh;
+
+	/**
+	 * The label that is currently checked out in the working directory and its version,
+	 * or null if the working directory has to be refreshed before it can be read.
+	 */
+	private volatile CheckedOutLabel checkedOut;
+
+	/**
+	 * Flag to indicate that configuration should be served from immutable per-commit
+	 * snapshots read directly from the object database, instead of checking out each
+	 * label in the working directory.
+	 */
+	private boolean serveFromSnapshots;
+
+	/**
+	 * Maximum number of labels for which a snapshot is kept.
+	 */
+	private int snapshotCacheSize;
+
+	/**
+	 * The commit ids of the snapshots currently used for each label, least recently used
+	 * first. Only modified while holding the write lock, so that the snapshots of evicted
+	 * labels can be deleted.
+	 */
+	private final Map<String, String> snapshotVersions = Collections
+		.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > Math.max(snapshotCacheSize, 1);
+			}
+		});
+
+	/**
+	 * Flag to indicate that the repository should be fetched by a background task every
+	 * refreshRate seconds, instead of on the request thread.
+	 */
+	private boolean refreshInBackground;
+
+	/**
+	 * Runs the background refresh, or null if requests fetch themselves.
+	 */
+	private volatile ScheduledExecutorService backgroundRefresher;
+
+	/**
+	 * Time the last successful fetch completed.
+	 */
+	private volatile long lastFetchTime;
+
+	/**
+	 * Duration (in milliseconds) of the last successful fetch.
+	 */
+	private volatile long lastFetchDuration;
+
+	private final AtomicLong fetchFailures = new AtomicLong();
 
 	/**
 	 * Flag to indicate that the repository should be cloned on startup (not on demand).
@@ -161,6 +234,9 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		this.skipSslValidation = properties.isSkipSslValidation();
 		this.gitFactory = new JGitFactory(properties.isCloneSubmodules());
 		this.tryMasterBranch = properties.isTryMasterBranch();
+		this.serveFromSnapshots = properties.isServeFromSnapshots();
+		this.snapshotCacheSize = properties.getSnapshotCacheSize();
+		this.refreshInBackground = properties.isRefreshInBackground();
 		this.observationRegistry = observationRegistry;
 	}
 
@@ -252,44 +328,261 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		this.skipSslValidation = skipSslValidation;
 	}
 
+	public boolean isServeFromSnapshots() {
+		return this.serveFromSnapshots;
+	}
+
+	public void setServeFromSnapshots(boolean serveFromSnapshots) {
+		this.serveFromSnapshots = serveFromSnapshots;
+	}
+
+	public int getSnapshotCacheSize() {
+		return this.snapshotCacheSize;
+	}
+
+	public void setSnapshotCacheSize(int snapshotCacheSize) {
+		this.snapshotCacheSize = snapshotCacheSize;
+	}
+
+	public boolean isRefreshInBackground() {
+		return this.refreshInBackground;
+	}
+
+	public void setRefreshInBackground(boolean refreshInBackground) {
+		this.refreshInBackground = refreshInBackground;
+	}
+
 	@Override
-	public synchronized Locations getLocations(String application, String profile, String label) {
+	public Locations getLocations(String application, String profile, String label) {
+		Locations current = getCurrentLocations(application, profile, label);
+		if (current != null) {
+			return current;
+		}
 		if (label == null) {
 			label = this.defaultLabel;
 		}
-		String version;
+		Lock writeLock = getWorkingDirectoryLock().writeLock();
+		writeLock.lock();
 		try {
-			version = refresh(label);
-		}
-		catch (Exception e) {
-			if (this.defaultLabel.equals(label) && JGitEnvironmentProperties.MAIN_LABEL.equals(this.defaultLabel)
-					&& tryMasterBranch) {
-				logger.info("Could not refresh default label " + label, e);
-				logger.info("Will try to refresh master label instead.");
-				version = refresh(JGitEnvironmentProperties.MASTER_LABEL);
+			String version;
+			try {
+				version = this.serveFromSnapshots ? refreshSnapshot(label) : refresh(label);
 			}
-			else {
-				throw e;
+			catch (Exception e) {
+				if (this.defaultLabel.equals(label) && JGitEnvironmentProperties.MAIN_LABEL.equals(this.defaultLabel)
+						&& tryMasterBranch) {
+					logger.info("Could not refresh default label " + label, e);
+					logger.info("Will try to refresh master label instead.");
+					version = this.serveFromSnapshots ? refreshSnapshot(JGitEnvironmentProperties.MASTER_LABEL)
+							: refresh(JGitEnvironmentProperties.MASTER_LABEL);
+				}
+				else {
+					throw e;
+				}
 			}
+			File directory = this.serveFromSnapshots ? getSnapshotDirectory(version) : getWorkingDirectory();
+			return new Locations(application, profile, label, version,
+					getSearchLocations(directory, application, profile, label));
 		}
-		return new Locations(application, profile, label, version,
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the locations of the given label without touching the repository if it is
+	 * the label that was checked out (or the snapshot that was extracted) by the last
+	 * refresh and no fetch is due according to the refresh rate. Otherwise the working
+	 * directory has to be refreshed first, so {@code null} is returned.
+	 */
+	@Override
+	protected Locations getCurrentLocations(String application, String profile, String label) {
+		if (label == null) {
+			label = this.defaultLabel;
+		}
+		if (isRefreshDue()) {
+			return null;
+		}
+		if (this.serveFromSnapshots) {
+			String version = label != null ? this.snapshotVersions.get(label) : null;
+			if (version == null) {
+				return null;
+			}
+			return new Locations(application, profile, label, version,
+					getSearchLocations(getSnapshotDirectory(version), application, profile, label));
+		}
+		CheckedOutLabel checkedOut = this.checkedOut;
+		if (checkedOut == null || !Objects.equals(checkedOut.label, label)) {
+			return null;
+		}
+		return new Locations(application, profile, label, checkedOut.version,
 				getSearchLocations(getWorkingDirectory(), application, profile, label));
 	}
 
 	@Override
-	public synchronized void afterPropertiesSet() throws Exception {
+	protected File getWorkingDirectory(Locations locations) {
+		if (this.serveFromSnapshots) {
+			return getSnapshotDirectory(locations.getVersion());
+		}
+		return getWorkingDirectory();
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
 		Assert.state(getUri() != null, MESSAGE);
 		if (this.cloneOnStart) {
-			initClonedRepository();
+			Lock writeLock = getWorkingDirectoryLock().writeLock();
+			writeLock.lock();
+			try {
+				this.checkedOut = null;
+				this.snapshotVersions.clear();
+				initClonedRepository();
+			}
+			finally {
+				writeLock.unlock();
+			}
+		}
+		if (this.refreshInBackground) {
+			startBackgroundRefresh();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		ScheduledExecutorService backgroundRefresher = this.backgroundRefresher;
+		if (backgroundRefresher != null) {
+			this.backgroundRefresher = null;
+			backgroundRefresher.shutdownNow();
 		}
 	}
 
+	private synchronized void startBackgroundRefresh() {
+		if (this.backgroundRefresher != null) {
+			return;
+		}
+		if (this.refreshRate <= 0) {
+			this.logger.warn("Background refresh needs a positive refreshRate, the repository " + getUri()
+					+ " will be refreshed on request instead");
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("config-git-refresh-");
+		threadFactory.setDaemon(true);
+		ScheduledExecutorService backgroundRefresher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		backgroundRefresher.scheduleWithFixedDelay(this::refreshInBackground, this.refreshRate, this.refreshRate,
+				TimeUnit.SECONDS);
+		this.backgroundRefresher = backgroundRefresher;
+	}
+
+	/**
+	 * Fetches all labels from the remote and swaps in the new commits of the labels that
+	 * are being served. The fetch only holds the read lock of the working directory, so
+	 * requests keep being served from the last fetched state in the meantime, while
+	 * requests that check out, clone or delete the repository wait for it. In checkout
+	 * mode only the label that is checked out is swapped in, the other labels are merged
+	 * with the fetched commits when a request checks them out.
+	 */
+	void refreshInBackground() {
+		Git git = null;
+		try {
+			FetchResult fetchStatus;
+			Lock readLock = getWorkingDirectoryLock().readLock();
+			readLock.lock();
+			try {
+				if (!new File(getWorkingDirectory(), ".git").exists()) {
+					// nothing to refresh, the first request clones the repository
+					return;
+				}
+				git = openGitRepository();
+				if (git.getRepository().getConfig().getString("remote", "origin", "url") == null) {
+					return;
+				}
+				fetchStatus = fetch(git, "all labels");
+			}
+			finally {
+				readLock.unlock();
+			}
+			if (fetchStatus == null) {
+				return;
+			}
+			Lock writeLock = getWorkingDirectoryLock().writeLock();
+			writeLock.lock();
+			try {
+				if (!new File(getWorkingDirectory(), ".git").exists()) {
+					// deleted by a request that failed to refresh it
+					return;
+				}
+				if (this.serveFromSnapshots) {
+					List<String> labels;
+					synchronized (this.snapshotVersions) {
+						labels = new ArrayList<>(this.snapshotVersions.keySet());
+					}
+					for (String label : labels) {
+						try {
+							refreshSnapshot(label);
+						}
+						catch (Exception e) {
+							// the next request for the label reports the problem
+							this.snapshotVersions.remove(label);
+							warn("Could not refresh snapshot for " + label, e);
+						}
+					}
+				}
+				else {
+					if (this.deleteUntrackedBranches) {
+						deleteUntrackedLocalBranches(fetchStatus.getTrackingRefUpdates(), git);
+					}
+					CheckedOutLabel checkedOut = this.checkedOut;
+					if (checkedOut != null) {
+						refresh(checkedOut.label);
+					}
+				}
+			}
+			finally {
+				writeLock.unlock();
+			}
+		}
+		catch (Exception e) {
+			warn("Background refresh of " + getUri() + " failed", e);
+		}
+		finally {
+			if (git != null) {
+				git.close();
+			}
+		}
+	}
+
+	public long getLastFetchTime() {
+		return this.lastFetchTime;
+	}
+
+	public long getLastFetchDuration() {
+		return this.lastFetchDuration;
+	}
+
+	public long getFetchFailureCount() {
+		return this.fetchFailures.get();
+	}
+
 	/**
 	 * Get the working directory ready.
 	 * @param label label to refresh
 	 * @return head id
 	 */
 	public String refresh(String label) {
+		Lock writeLock = getWorkingDirectoryLock().writeLock();
+		writeLock.lock();
+		try {
+			this.checkedOut = null;
+			String version = doRefresh(label);
+			this.checkedOut = new CheckedOutLabel(label, version);
+			return version;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	private String doRefresh(String label) {
 		Git git = null;
 		try {
 			git = createGitClient();
@@ -333,6 +626,145 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		}
 	}
 
+	/**
+	 * Fetches from the remote if needed and makes sure that there is a snapshot of the
+	 * commit the label points to. Unlike {@link #refresh(String)} the working directory is
+	 * left alone: the files of the snapshot are read straight from the object database.
+	 * @param label label to refresh
+	 * @return the commit id the label points to
+	 */
+	private String refreshSnapshot(String label) {
+		Git git = null;
+		try {
+			git = createGitClient();
+			if (shouldPull(git)) {
+				fetch(git, label);
+			}
+			Repository repository = git.getRepository();
+			ObjectId commitId = resolveCommit(repository, label);
+			if (commitId == null) {
+				throw new RefNotFoundException("Label " + label + " does not resolve to a commit");
+			}
+			String version = commitId.getName();
+			File snapshot = getSnapshotDirectory(version);
+			if (!snapshot.exists()) {
+				createSnapshot(repository, commitId, snapshot);
+			}
+			this.snapshotVersions.put(label, version);
+			deleteUnusedSnapshots();
+			return version;
+		}
+		catch (RefNotFoundException e) {
+			throw new NoSuchLabelException("No such label: " + label, e);
+		}
+		catch (NoRemoteRepositoryException e) {
+			throw new NoSuchRepositoryException("No such repository: " + getUri(), e);
+		}
+		catch (GitAPIException e) {
+			throw new NoSuchRepositoryException("Cannot clone or checkout repository: " + getUri(), e);
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("Cannot load environment", e);
+		}
+		finally {
+			try {
+				if (git != null) {
+					git.close();
+				}
+			}
+			catch (Exception e) {
+				this.logger.warn("Could not close git repository", e);
+			}
+		}
+	}
+
+	private ObjectId resolveCommit(Repository repository, String label) throws IOException {
+		// remote branches first, the local ones are never updated in this mode
+		for (String candidate : new String[] { LOCAL_BRANCH_REF_PREFIX + label, "refs/tags/" + label,
+				"refs/heads/" + label, label }) {
+			ObjectId commitId = repository.resolve(candidate + "^{commit}");
+			if (commitId != null) {
+				return commitId;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the files of the given commit to the snapshot directory. The files are
+	 * written to a temporary directory first, so that a snapshot is never observed half
+	 * written.
+	 */
+	private void createSnapshot(Repository repository, ObjectId commitId, File snapshot) throws IOException {
+		File snapshots = snapshot.getParentFile();
+		snapshots.mkdirs();
+		File temp = Files.createTempDirectory(snapshots.toPath(), "." + snapshot.getName()).toFile();
+		String root = temp.getCanonicalPath() + File.separator;
+		try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+			RevCommit commit = revWalk.parseCommit(commitId);
+			treeWalk.addTree(commit.getTree());
+			treeWalk.setRecursive(true);
+			while (treeWalk.next()) {
+				if ((treeWalk.getFileMode(0).getBits() & FileMode.TYPE_MASK) != FileMode.TYPE_FILE) {
+					// skip symlinks and submodules
+					continue;
+				}
+				File file = new File(temp, treeWalk.getPathString());
+				if (!file.getCanonicalPath().startsWith(root)) {
+					throw new IOException("Path " + treeWalk.getPathString() + " of commit " + commitId.getName()
+							+ " is outside of the snapshot");
+				}
+				file.getParentFile().mkdirs();
+				try (OutputStream out = Files.newOutputStream(file.toPath())) {
+					repository.open(treeWalk.getObjectId(0)).copyTo(out);
+				}
+			}
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			if (temp.exists()) {
+				FileUtils.delete(temp, FileUtils.RECURSIVE);
+			}
+		}
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Created snapshot of " + commitId.getName() + " in " + snapshot);
+		}
+	}
+
+	/**
+	 * Deletes the snapshots that are no longer used by any label. Only called while
+	 * holding the write lock, so nobody is reading from them.
+	 */
+	private void deleteUnusedSnapshots() {
+		File[] snapshots = getSnapshotsDirectory().listFiles();
+		if (snapshots == null) {
+			return;
+		}
+		Collection<String> used;
+		synchronized (this.snapshotVersions) {
+			used = new HashSet<>(this.snapshotVersions.values());
+		}
+		for (File snapshot : snapshots) {
+			if (!used.contains(snapshot.getName())) {
+				try {
+					FileUtils.delete(snapshot, FileUtils.RECURSIVE);
+				}
+				catch (IOException e) {
+					this.logger.warn("Could not delete unused snapshot " + snapshot, e);
+				}
+			}
+		}
+	}
+
+	private File getSnapshotsDirectory() {
+		// next to the base directory, so the working tree of the clone stays clean
+		return new File(getBasedir().getParentFile(), getBasedir().getName() + "-snapshots");
+	}
+
+	private File getSnapshotDirectory(String version) {
+		return new File(getSnapshotsDirectory(), version);
+	}
+
 	private void tryMerge(Git git, String label) {
 		try {
 			if (isBranch(git, label)) {
@@ -470,8 +902,7 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	protected boolean shouldPull(Git git) throws GitAPIException {
 		boolean shouldPull;
 
-		if (this.refreshRate < 0 || (this.refreshRate > 0
-				&& System.currentTimeMillis() - this.lastRefresh < (this.refreshRate * 1000))) {
+		if (!isRefreshDue()) {
 			return false;
 		}
 
@@ -500,6 +931,15 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		return shouldPull;
 	}
 
+	private boolean isRefreshDue() {
+		if (this.backgroundRefresher != null) {
+			// fetched in the background, requests serve the last fetched state
+			return false;
+		}
+		return this.refreshRate == 0 || (this.refreshRate > 0
+				&& System.currentTimeMillis() - this.lastRefresh >= (this.refreshRate * 1000L));
+	}
+
 	protected void onPullInvalidIndex(Git git, JGitInternalException e) {
 		if (!e.getMessage().contains("Short read of block.")) {
 			throw e;
@@ -547,8 +987,11 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		}
 
 		configureCommand(fetch);
+		long start = System.currentTimeMillis();
 		try {
 			FetchResult result = fetch.call();
+			this.lastFetchTime = System.currentTimeMillis();
+			this.lastFetchDuration = this.lastFetchTime - start;
 			if (result.getTrackingRefUpdates() != null && result.getTrackingRefUpdates().size() > 0) {
 				this.logger.info("Fetched for remote " + label + " and found " + result.getTrackingRefUpdates().size()
 						+ " updates");
@@ -556,6 +999,7 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 			return result;
 		}
 		catch (Exception ex) {
+			this.fetchFailures.incrementAndGet();
 			String message = "Could not fetch remote for " + label + " remote: "
 					+ git.getRepository().getConfig().getString("remote", "origin", "url");
 			warn(message, ex);
@@ -753,6 +1197,19 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		this.lastRefresh = lastRefresh;
 	}
 
+	private static final class CheckedOutLabel {
+
+		private final String label;
+
+		private final String version;
+
+		private CheckedOutLabel(String label, String version) {
+			this.label = label;
+			this.version = version;
+		}
+
+	}
+
 	/**
 	 * Wraps the static method calls to {@link org.eclipse.jgit.api.Git} and
 	 * {@link org.eclipse.jgit.api.CloneCommand} allowing for easier unit testing.
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.FileUrlResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Loads the configuration files of an application directly from the search locations,
+ * without bootstrapping Spring Boot's config data support. Files are looked up, named and
+ * ordered the same way as the config data support would do it for
+ * {@link NativeEnvironmentRepository}. Files that use features only the config data
+ * support provides (imports, profile groups and includes, wildcard locations, ...) make
+ * {@link #load(String[], String, String)} return {@code null}, so that the caller can
+ * fall back to it.
+ *
+ * @since 4.3.0
+ */
+class LightweightConfigFileLoader {
+
+	private static final String OPTIONAL_PREFIX = "optional:";
+
+	private static final String ON_PROFILE = "spring.config.activate.on-profile";
+
+	/**
+	 * File extensions in order of precedence.
+	 */
+	private static final String[] EXTENSIONS = { "properties", "xml", "yml", "yaml" };
+
+	private final PropertySourceLoader properties = new PropertiesPropertySourceLoader();
+
+	private final PropertySourceLoader yaml = new YamlPropertySourceLoader();
+
+	private final ResourceLoader resourceLoader;
+
+	private final PropertyFileCache cache;
+
+	LightweightConfigFileLoader(ResourceLoader resourceLoader, PropertyFileCache cache) {
+		this.resourceLoader = resourceLoader;
+		this.cache = cache;
+	}
+
+	/**
+	 * Loads the configuration files of the given application and profiles.
+	 * @param locations the search locations
+	 * @param application the (comma separated) application names
+	 * @param profile the (comma separated) profiles
+	 * @return the property sources, highest precedence first, or {@code null} if the
+	 * files have to be loaded by the config data support
+	 * @throws IOException if a file cannot be read
+	 */
+	List<PropertySource<?>> load(String[] locations, String application, String profile) throws IOException {
+		List<String> names = getNames(application);
+		List<String> profiles = getProfiles(profile);
+		if (names == null || profiles == null) {
+			return null;
+		}
+		List<PropertySource<?>> result = new ArrayList<>();
+		// profile specific files take precedence, the last profile wins
+		for (int i = profiles.size() - 1; i >= 0; i--) {
+			if (!addFiles(result, locations, names, profiles.get(i), profiles)) {
+				return null;
+			}
+		}
+		if (!addFiles(result, locations, names, null, profiles)) {
+			return null;
+		}
+		return result;
+	}
+
+	private boolean addFiles(List<PropertySource<?>> result, String[] locations, List<String> names, String profile,
+			List<String> activeProfiles) throws IOException {
+		// later locations and names take precedence
+		for (int i = locations.length - 1; i >= 0; i--) {
+			String location = locations[i];
+			String directory = location.startsWith(OPTIONAL_PREFIX) ? location.substring(OPTIONAL_PREFIX.length())
+					: location;
+			if (!StringUtils.hasText(directory)) {
+				continue;
+			}
+			if (directory.contains("*")) {
+				return false;
+			}
+			for (int j = names.size() - 1; j >= 0; j--) {
+				String file = directory + names.get(j) + ((profile != null) ? "-" + profile : "");
+				for (String extension : EXTENSIONS) {
+					Resource resource = getResource(file + "." + extension);
+					if (!resource.exists()) {
+						continue;
+					}
+					List<PropertySource<?>> documents = load(getName(resource, location), resource, extension);
+					// later documents take precedence
+					for (int k = documents.size() - 1; k >= 0; k--) {
+						Boolean active = isActive(documents.get(k), profile != null, activeProfiles);
+						if (active == null) {
+							return false;
+						}
+						if (active) {
+							result.add(documents.get(k));
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private List<PropertySource<?>> load(String name, Resource resource, String extension) throws IOException {
+		PropertySourceLoader loader = Arrays.asList(this.yaml.getFileExtensions()).contains(extension) ? this.yaml
+				: this.properties;
+		if (this.cache == null) {
+			return loader.load(name, resource);
+		}
+		return this.cache.load(name, resource, loader);
+	}
+
+	private Resource getResource(String location) {
+		location = StringUtils.cleanPath(location);
+		if (!ResourceUtils.isUrl(location)) {
+			location = ResourceUtils.FILE_URL_PREFIX + location;
+		}
+		return this.resourceLoader.getResource(location);
+	}
+
+	private String getName(Resource resource, String location) {
+		String description = resource.toString();
+		if (resource instanceof FileSystemResource || resource instanceof FileUrlResource) {
+			try {
+				description = "file [" + resource.getFile() + "]";
+			}
+			catch (IOException ex) {
+				// use the default description
+			}
+		}
+		return String.format("Config resource '%s' via location '%s'", description, location);
+	}
+
+	/**
+	 * Returns whether the document is active for the given profiles, or {@code null} if
+	 * it contains properties that only the config data support understands.
+	 */
+	private Boolean isActive(PropertySource<?> document, boolean profileSpecific, List<String> activeProfiles) {
+		if (!(document.getSource() instanceof Map<?, ?> source)) {
+			return null;
+		}
+		List<String> onProfile = new ArrayList<>();
+		for (Object key : source.keySet()) {
+			String name = key.toString();
+			if (name.equals(ON_PROFILE) || (name.startsWith(ON_PROFILE + "[") && name.endsWith("]"))) {
+				onProfile.addAll(Arrays.asList(
+						StringUtils.commaDelimitedListToStringArray(String.valueOf(document.getProperty(name)))));
+			}
+			else if (name.startsWith("spring.config.") || name.startsWith("spring.profiles")) {
+				return null;
+			}
+		}
+		if (onProfile.isEmpty()) {
+			return true;
+		}
+		if (profileSpecific) {
+			return null;
+		}
+		for (int i = 0; i < onProfile.size(); i++) {
+			String expression = onProfile.get(i).trim();
+			if (!StringUtils.hasText(expression)) {
+				return null;
+			}
+			onProfile.set(i, expression);
+		}
+		return Profiles.of(onProfile.toArray(new String[0])).matches(activeProfiles::contains);
+	}
+
+	private List<String> getNames(String application) {
+		Set<String> names = new LinkedHashSet<>();
+		names.add("application");
+		if (!"application".equals(application)) {
+			names.addAll(Arrays.asList(StringUtils.commaDelimitedListToStringArray(application)));
+		}
+		for (String name : names) {
+			if (!StringUtils.hasText(name) || name.contains("*") || name.endsWith("/")) {
+				return null;
+			}
+		}
+		return new ArrayList<>(names);
+	}
+
+	private List<String> getProfiles(String profile) {
+		Set<String> profiles = new LinkedHashSet<>();
+		for (String value : StringUtils.commaDelimitedListToStringArray(profile)) {
+			if (!StringUtils.hasText(value) || !value.equals(value.trim())) {
+				return null;
+			}
+			profiles.add(value);
+		}
+		if (profiles.isEmpty()) {
+			profiles.add("default");
+		}
+		return new ArrayList<>(profiles);
+	}
+
+}
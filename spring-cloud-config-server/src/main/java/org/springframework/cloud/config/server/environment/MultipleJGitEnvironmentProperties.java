@@ -42,6 +42,20 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
 	 */
 	private Map<String, PatternMatchingJGitEnvironmentProperties> repos = new LinkedHashMap<>();
 
+	/**
+	 * Maximum number of repositories created for URIs with placeholders (for example
+	 * {application}). The least recently used repositories are evicted and their clones
+	 * deleted from disk. Set to 0 for no limit.
+	 */
+	private int placeholderCacheSize = 100;
+
+	/**
+	 * Time (in seconds) after which a repository created for a URI with placeholders is
+	 * evicted and its clone deleted from disk if it has not been used. Defaults to 0,
+	 * which means never.
+	 */
+	private int placeholderIdleTimeout = 0;
+
 	public Map<String, PatternMatchingJGitEnvironmentProperties> getRepos() {
 		return this.repos;
 	}
@@ -50,6 +64,22 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
 		this.repos = repos;
 	}
 
+	public int getPlaceholderCacheSize() {
+		return this.placeholderCacheSize;
+	}
+
+	public void setPlaceholderCacheSize(int placeholderCacheSize) {
+		this.placeholderCacheSize = placeholderCacheSize;
+	}
+
+	public int getPlaceholderIdleTimeout() {
+		return this.placeholderIdleTimeout;
+	}
+
+	public void setPlaceholderIdleTimeout(int placeholderIdleTimeout) {
+		this.placeholderIdleTimeout = placeholderIdleTimeout;
+	}
+
 	/**
 	 * A {@link JGitEnvironmentProperties} that matches patterns.
 	 */
@@ -17,18 +17,32 @@
 package org.springframework.cloud.config.server.environment;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import io.micrometer.observation.ObservationRegistry;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
 
@@ -49,12 +63,38 @@ import org.springframework.util.StringUtils;
  */
 public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository {
 
+	private static final long PLACEHOLDER_DISK_USAGE_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+	private static final long PLACEHOLDER_EVICTION_INTERVAL = TimeUnit.MINUTES.toSeconds(1);
+
 	/**
 	 * Map of repository identifier to location and other properties.
 	 */
-	private Map<String, PatternMatchingJGitEnvironmentRepository> repos = new LinkedHashMap<>();
+	private final Map<String, PatternMatchingJGitEnvironmentRepository> repos = new LinkedHashMap<>();
+
+	/**
+	 * Repositories created for URIs with placeholders, least recently used first.
+	 */
+	private final Map<String, PlaceholderRepository> placeholders = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong placeholderEvictionCount = new AtomicLong();
+
+	private volatile DiskUsage placeholderDiskUsage;
+
+	/**
+	 * Evicts idle placeholder repositories, or null if there is no idle timeout.
+	 */
+	private ScheduledExecutorService placeholderEvictor;
 
-	private Map<String, JGitEnvironmentRepository> placeholders = new LinkedHashMap<>();
+	/**
+	 * The compiled patterns of the repos, reset when the repos may have been changed and
+	 * rebuilt when their patterns are changed.
+	 */
+	private volatile CompiledPatterns patternIndex;
+
+	private int placeholderCacheSize;
+
+	private int placeholderIdleTimeout;
 
 	private final ObservationRegistry observationRegistry;
 
@@ -62,6 +102,8 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			MultipleJGitEnvironmentProperties properties, ObservationRegistry observationRegistry) {
 		super(environment, properties, observationRegistry);
 		this.observationRegistry = observationRegistry;
+		this.placeholderCacheSize = properties.getPlaceholderCacheSize();
+		this.placeholderIdleTimeout = properties.getPlaceholderIdleTimeout();
 		properties.getRepos()
 			.forEach((name, props) -> this.repos.put(name,
 					new PatternMatchingJGitEnvironmentRepository(environment, props, this.observationRegistry)));
@@ -100,8 +142,18 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			if (isSkipSslValidation()) {
 				repo.setSkipSslValidation(true);
 			}
+			if (isServeFromSnapshots()) {
+				repo.setServeFromSnapshots(true);
+			}
+			if (isRefreshInBackground()) {
+				repo.setRefreshInBackground(true);
+			}
 			repo.afterPropertiesSet();
 		}
+		if (this.placeholderIdleTimeout > 0) {
+			startPlaceholderEviction();
+		}
+		this.patternIndex = null;
 		if (!getBasedir().exists() && !getBasedir().mkdirs()) {
 			throw new IllegalStateException("Basedir does not exist and can not be created: " + getBasedir());
 		}
@@ -111,47 +163,144 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		}
 	}
 
+	/**
+	 * Returns the repositories by name. The map can be changed, the patterns are
+	 * compiled again on the next request.
+	 * @return the repositories
+	 */
 	public Map<String, PatternMatchingJGitEnvironmentRepository> getRepos() {
+		this.patternIndex = null;
 		return this.repos;
 	}
 
 	public void setRepos(Map<String, PatternMatchingJGitEnvironmentRepository> repos) {
 		this.repos.putAll(repos);
+		this.patternIndex = null;
+	}
+
+	public int getPlaceholderCacheSize() {
+		return this.placeholderCacheSize;
+	}
+
+	public void setPlaceholderCacheSize(int placeholderCacheSize) {
+		this.placeholderCacheSize = placeholderCacheSize;
+	}
+
+	public int getPlaceholderIdleTimeout() {
+		return this.placeholderIdleTimeout;
+	}
+
+	public void setPlaceholderIdleTimeout(int placeholderIdleTimeout) {
+		this.placeholderIdleTimeout = placeholderIdleTimeout;
+	}
+
+	/**
+	 * @return the number of repositories currently created for URIs with placeholders
+	 * @since 4.3.0
+	 */
+	public int getPlaceholderCount() {
+		synchronized (this.placeholders) {
+			return this.placeholders.size();
+		}
+	}
+
+	/**
+	 * @return the number of repositories created for URIs with placeholders that were
+	 * evicted and deleted from disk
+	 * @since 4.3.0
+	 */
+	public long getPlaceholderEvictionCount() {
+		return this.placeholderEvictionCount.get();
+	}
+
+	/**
+	 * Returns the disk space used by the clones of the repositories created for URIs with
+	 * placeholders. The clones are walked at most once a minute, or after a repository was
+	 * evicted, so the value may lag behind fetches in between.
+	 * @return the disk usage in bytes
+	 * @since 4.3.0
+	 */
+	public long getPlaceholderDiskUsage() {
+		DiskUsage usage = this.placeholderDiskUsage;
+		long now = System.nanoTime();
+		if (usage != null && now - usage.time < PLACEHOLDER_DISK_USAGE_INTERVAL) {
+			return usage.bytes;
+		}
+		List<File> basedirs = new ArrayList<>();
+		synchronized (this.placeholders) {
+			this.placeholders.values().forEach(placeholder -> basedirs.add(placeholder.repository.getBasedir()));
+		}
+		long size = 0;
+		for (File basedir : basedirs) {
+			size += getDiskUsage(basedir.toPath());
+		}
+		this.placeholderDiskUsage = new DiskUsage(size, now);
+		return size;
+	}
+
+	private static long getDiskUsage(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return 0;
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+		}
+		catch (IOException | UncheckedIOException e) {
+			// the clone was deleted or changed while walking it
+			return 0;
+		}
 	}
 
 	@Override
 	public Locations getLocations(String application, String profile, String label) {
-		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
-			if (repository.matches(application, profile, label)) {
-				for (JGitEnvironmentRepository candidate : getRepositories(repository, application, profile, label)) {
-					try {
-						Environment source = candidate.findOne(application, profile, label, false);
-						if (source != null) {
-							return candidate.getLocations(application, profile, label);
-						}
+		try (RepositoryLease candidate = getLocationsCandidate(application, profile, label)) {
+			if (candidate.repository == this) {
+				return super.getLocations(application, profile, label);
+			}
+			return candidate.repository.getLocations(application, profile, label);
+		}
+	}
+
+	@Override
+	public <T> T withLocations(String application, String profile, String label, Function<Locations, T> callback) {
+		try (RepositoryLease candidate = getLocationsCandidate(application, profile, label)) {
+			if (candidate.repository == this) {
+				return super.withLocations(application, profile, label, callback);
+			}
+			return candidate.repository.withLocations(application, profile, label, callback);
+		}
+	}
+
+	private RepositoryLease getLocationsCandidate(String application, String profile, String label) {
+		for (PatternMatchingJGitEnvironmentRepository repository : getMatchingRepositories(application, profile,
+				label)) {
+			for (String candidateProfile : getCandidateProfiles(profile)) {
+				RepositoryLease candidate = lease(repository, application, candidateProfile, label);
+				try {
+					Environment source = candidate.repository.findOne(application, profile, label, false);
+					if (source != null) {
+						return candidate;
 					}
-					catch (Exception e) {
-						if (this.logger.isDebugEnabled()) {
-							this.logger.debug("Cannot retrieve resource locations from " + candidate.getUri()
-									+ ", cause: (" + e.getClass().getSimpleName() + ") " + e.getMessage(), e);
-						}
-						continue;
+				}
+				catch (Exception e) {
+					if (this.logger.isDebugEnabled()) {
+						this.logger.debug("Cannot retrieve resource locations from " + candidate.repository.getUri()
+								+ ", cause: (" + e.getClass().getSimpleName() + ") " + e.getMessage(), e);
 					}
 				}
+				candidate.close();
 			}
 		}
-		JGitEnvironmentRepository candidate = getRepository(this, application, profile, label);
-		if (candidate == this) {
-			return super.getLocations(application, profile, label);
-		}
-		return candidate.getLocations(application, profile, label);
+		return lease(this, application, profile, label);
 	}
 
 	@Override
 	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
-		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
-			if (repository.matches(application, profile, label)) {
-				for (JGitEnvironmentRepository candidate : getRepositories(repository, application, profile, label)) {
+		for (PatternMatchingJGitEnvironmentRepository repository : getMatchingRepositories(application, profile,
+				label)) {
+			for (String candidateProfile : getCandidateProfiles(profile)) {
+				try (RepositoryLease lease = lease(repository, application, candidateProfile, label)) {
+					JGitEnvironmentRepository candidate = lease.repository;
 					try {
 						if (label == null) {
 							label = candidate.getDefaultLabel();
@@ -166,30 +315,71 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 							this.logger.debug("Cannot load configuration from " + candidate.getUri() + ", cause: ("
 									+ e.getClass().getSimpleName() + ") " + e.getMessage(), e);
 						}
-						continue;
 					}
 				}
 			}
 		}
-		JGitEnvironmentRepository candidate = getRepository(this, application, profile, label);
-		if (label == null) {
-			label = candidate.getDefaultLabel();
-		}
-		try {
+		try (RepositoryLease lease = lease(this, application, profile, label)) {
+			JGitEnvironmentRepository candidate = lease.repository;
+			if (label == null) {
+				label = candidate.getDefaultLabel();
+			}
 			return findOneFromCandidate(candidate, application, profile, label, includeOrigin);
 		}
 		catch (Exception e) {
 			if (MultipleJGitEnvironmentProperties.MAIN_LABEL.equals(label) && isTryMasterBranch()) {
 				logger.info("Cannot find Environment with default label " + getDefaultLabel(), e);
 				logger.info("Will try to find Environment master label instead.");
-				candidate = getRepository(this, application, profile, MultipleJGitEnvironmentProperties.MASTER_LABEL);
-				return findOneFromCandidate(candidate, application, profile,
-						MultipleJGitEnvironmentProperties.MASTER_LABEL, includeOrigin);
+				try (RepositoryLease lease = lease(this, application, profile,
+						MultipleJGitEnvironmentProperties.MASTER_LABEL)) {
+					return findOneFromCandidate(lease.repository, application, profile,
+							MultipleJGitEnvironmentProperties.MASTER_LABEL, includeOrigin);
+				}
 			}
 			throw e;
 		}
 	}
 
+	/**
+	 * Returns the repos whose patterns match the given application and profiles, in the
+	 * order of declaration, using the compiled patterns.
+	 */
+	private List<PatternMatchingJGitEnvironmentRepository> getMatchingRepositories(String application,
+			String profile, String label) {
+		long stamp = 0;
+		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
+			stamp += repository.patternChanges;
+		}
+		CompiledPatterns compiled = this.patternIndex;
+		if (compiled == null || compiled.stamp != stamp) {
+			compiled = new CompiledPatterns(stamp, compilePatterns());
+			this.patternIndex = compiled;
+		}
+		PatternIndex<PatternMatchingJGitEnvironmentRepository> index = compiled.index;
+		List<String> names = new ArrayList<>();
+		for (String name : StringUtils.commaDelimitedListToStringArray(profile)) {
+			names.add(application + "/" + name);
+		}
+		List<PatternMatchingJGitEnvironmentRepository> matches = index.getMatches(names);
+		// subclasses may override matches(), so they are only candidates
+		matches.removeIf(repository -> repository.getClass() != PatternMatchingJGitEnvironmentRepository.class
+				&& !repository.matches(application, profile, label));
+		return matches;
+	}
+
+	private PatternIndex<PatternMatchingJGitEnvironmentRepository> compilePatterns() {
+		PatternIndex<PatternMatchingJGitEnvironmentRepository> index = new PatternIndex<>();
+		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
+			if (repository.getClass() == PatternMatchingJGitEnvironmentRepository.class) {
+				index.add(repository, repository.getPattern());
+			}
+			else {
+				index.addCandidate(repository);
+			}
+		}
+		return index;
+	}
+
 	private Environment findOneFromCandidate(JGitEnvironmentRepository candidate, String application, String profile,
 			String label, boolean includeOrigin) {
 		if (candidate == this) {
@@ -198,21 +388,49 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		return candidate.findOne(application, profile, label, includeOrigin);
 	}
 
-	private List<JGitEnvironmentRepository> getRepositories(JGitEnvironmentRepository repository, String application,
-			String profile, String label) {
-		List<JGitEnvironmentRepository> list = new ArrayList<>();
+	@Override
+	public void destroy() {
+		super.destroy();
+		stopPlaceholderEviction();
+		for (PatternMatchingJGitEnvironmentRepository repo : this.repos.values()) {
+			repo.destroy();
+		}
+		synchronized (this.placeholders) {
+			this.placeholders.values().forEach(placeholder -> placeholder.repository.destroy());
+		}
+	}
+
+	private static List<String> getCandidateProfiles(String profile) {
+		List<String> list = new ArrayList<>();
 		String[] profiles = profile == null ? new String[] { null }
 				: StringUtils.commaDelimitedListToStringArray(profile);
 		for (int i = profiles.length; i-- > 0;) {
-			list.add(getRepository(repository, application, profiles[i], label));
+			list.add(profiles[i]);
 		}
 		return list;
 	}
 
+	/**
+	 * Returns the repository for the given application, profile and label, without
+	 * holding on to it, so a repository created for a URI with placeholders may be
+	 * evicted and deleted as soon as it is returned.
+	 */
 	JGitEnvironmentRepository getRepository(JGitEnvironmentRepository repository, String application, String profile,
 			String label) {
+		try (RepositoryLease lease = lease(repository, application, profile, label)) {
+			return lease.repository;
+		}
+	}
+
+	/**
+	 * Returns the repository for the given application, profile and label. A repository
+	 * created for a URI with placeholders is not deleted if it is evicted before the
+	 * lease is closed, so that it is not cloned again into a directory nobody tracks.
+	 */
+	private RepositoryLease lease(JGitEnvironmentRepository repository, String application, String profile,
+			String label) {
 		if (!repository.getUri().contains("{")) {
-			return repository;
+			return new RepositoryLease(repository, null);
 		}
 		String key = repository.getUri();
 
@@ -230,32 +448,224 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		if (label != null) {
 			key = key.replace("{label}", label);
 		}
-		if (!this.placeholders.containsKey(key)) {
-			this.placeholders.put(key, getRepository(repository, key));
+		List<JGitEnvironmentRepository> evicted = new ArrayList<>();
+		PlaceholderRepository placeholder;
+		synchronized (this.placeholders) {
+			long now = System.currentTimeMillis();
+			placeholder = this.placeholders.get(key);
+			if (placeholder == null) {
+				placeholder = new PlaceholderRepository(getRepository(repository, key));
+				this.placeholders.put(key, placeholder);
+			}
+			placeholder.lastAccessTime = now;
+			placeholder.users++;
+			evictPlaceholders(now, evicted);
+		}
+		evicted.forEach(this::deletePlaceholder);
+		return new RepositoryLease(placeholder.repository, placeholder);
+	}
+
+	/**
+	 * Evicts the placeholder repositories that have been idle for longer than the idle
+	 * timeout, and deletes their clones unless they are still in use. Called
+	 * periodically if there is an idle timeout, so that idle repositories are also
+	 * evicted when no more requests come in.
+	 * @since 4.3.0
+	 */
+	public void evictIdlePlaceholders() {
+		List<JGitEnvironmentRepository> evicted = new ArrayList<>();
+		synchronized (this.placeholders) {
+			evictPlaceholders(System.currentTimeMillis(), evicted);
+		}
+		evicted.forEach(this::deletePlaceholder);
+	}
+
+	private synchronized void startPlaceholderEviction() {
+		if (this.placeholderEvictor != null) {
+			return;
+		}
+		long interval = Math.min(this.placeholderIdleTimeout, PLACEHOLDER_EVICTION_INTERVAL);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("config-git-evict-");
+		threadFactory.setDaemon(true);
+		ScheduledExecutorService placeholderEvictor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		placeholderEvictor.scheduleWithFixedDelay(this::evictIdlePlaceholders, interval, interval, TimeUnit.SECONDS);
+		this.placeholderEvictor = placeholderEvictor;
+	}
+
+	private synchronized void stopPlaceholderEviction() {
+		if (this.placeholderEvictor != null) {
+			this.placeholderEvictor.shutdownNow();
+			this.placeholderEvictor = null;
+		}
+	}
+
+	private void release(PlaceholderRepository placeholder) {
+		boolean delete;
+		synchronized (this.placeholders) {
+			placeholder.users--;
+			delete = placeholder.evicted && placeholder.users == 0;
+		}
+		if (delete) {
+			deletePlaceholder(placeholder.repository);
+		}
+	}
+
+	/**
+	 * Removes the least recently used placeholder repositories while there are too many
+	 * of them or they have been idle for too long. Repositories still in use are deleted
+	 * once they are released. Only called while holding the monitor of the placeholders.
+	 */
+	private void evictPlaceholders(long now, List<JGitEnvironmentRepository> evicted) {
+		Iterator<PlaceholderRepository> iterator = this.placeholders.values().iterator();
+		while (iterator.hasNext()) {
+			PlaceholderRepository eldest = iterator.next();
+			boolean full = this.placeholderCacheSize > 0 && this.placeholders.size() > this.placeholderCacheSize;
+			boolean idle = this.placeholderIdleTimeout > 0
+					&& now - eldest.lastAccessTime > this.placeholderIdleTimeout * 1000L;
+			if (!full && !idle) {
+				return;
+			}
+			iterator.remove();
+			this.placeholderEvictionCount.incrementAndGet();
+			this.placeholderDiskUsage = null;
+			eldest.evicted = true;
+			if (eldest.users == 0) {
+				evicted.add(eldest.repository);
+			}
+		}
+	}
+
+	/**
+	 * Deletes the clone of an evicted placeholder repository that is no longer used.
+	 */
+	private void deletePlaceholder(JGitEnvironmentRepository repository) {
+		repository.destroy();
+		Lock writeLock = repository.getWorkingDirectoryLock().writeLock();
+		writeLock.lock();
+		try {
+			FileSystemUtils.deleteRecursively(repository.getBasedir().toPath());
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Deleted evicted repository " + repository.getUri() + " from "
+						+ repository.getBasedir());
+			}
+		}
+		catch (IOException e) {
+			this.logger.warn("Could not delete evicted repository " + repository.getUri() + " from "
+					+ repository.getBasedir(), e);
+		}
+		finally {
+			writeLock.unlock();
 		}
-		return this.placeholders.get(key);
 	}
 
 	private JGitEnvironmentRepository getRepository(JGitEnvironmentRepository source, String uri) {
-		JGitEnvironmentRepository repository = new JGitEnvironmentRepository(null, new JGitEnvironmentProperties(),
-				observationRegistry);
+		// a unique directory next to the clone of the source, created directly instead
+		// of as a temporary directory that would only be deleted on exit
+		JGitEnvironmentProperties properties = new JGitEnvironmentProperties();
+		properties.setBasedir(createPlaceholderBasedir(source));
+		JGitEnvironmentRepository repository = new JGitEnvironmentRepository(null, properties, observationRegistry);
 		File basedir = repository.getBasedir();
 		BeanUtils.copyProperties(source, repository);
 		repository.setUri(uri);
-		repository.setBasedir(new File(source.getBasedir(), basedir.getName()));
+		repository.setBasedir(basedir);
 		return repository;
 	}
 
+	private static File createPlaceholderBasedir(JGitEnvironmentRepository source) {
+		try {
+			Path parent = Files.createDirectories(source.getBasedir().toPath());
+			return Files.createTempDirectory(parent, "config-repo-").toFile();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Cannot create base directory in " + source.getBasedir(), e);
+		}
+	}
+
 	@Override
 	public void setOrder(int order) {
 		super.setOrder(order);
 	}
 
+	private static final class PlaceholderRepository {
+
+		private final JGitEnvironmentRepository repository;
+
+		private long lastAccessTime;
+
+		private int users;
+
+		private boolean evicted;
+
+		private PlaceholderRepository(JGitEnvironmentRepository repository) {
+			this.repository = repository;
+		}
+
+	}
+
+	/**
+	 * A repository in use, released when closed.
+	 */
+	private final class RepositoryLease implements AutoCloseable {
+
+		private final JGitEnvironmentRepository repository;
+
+		private final PlaceholderRepository placeholder;
+
+		private RepositoryLease(JGitEnvironmentRepository repository, PlaceholderRepository placeholder) {
+			this.repository = repository;
+			this.placeholder = placeholder;
+		}
+
+		@Override
+		public void close() {
+			if (this.placeholder != null) {
+				release(this.placeholder);
+			}
+		}
+
+	}
+
+	/**
+	 * The compiled patterns with the number of changes of the patterns of the repos they
+	 * were compiled at.
+	 */
+	private static final class CompiledPatterns {
+
+		private final long stamp;
+
+		private final PatternIndex<PatternMatchingJGitEnvironmentRepository> index;
+
+		private CompiledPatterns(long stamp, PatternIndex<PatternMatchingJGitEnvironmentRepository> index) {
+			this.stamp = stamp;
+			this.index = index;
+		}
+
+	}
+
+	private static final class DiskUsage {
+
+		private final long bytes;
+
+		private final long time;
+
+		private DiskUsage(long bytes, long time) {
+			this.bytes = bytes;
+			this.time = time;
+		}
+
+	}
+
 	/**
 	 * A {@link JGitEnvironmentProperties} that matches patterns.
 	 */
 	public static class PatternMatchingJGitEnvironmentRepository extends JGitEnvironmentRepository {
 
+		/**
+		 * Number of times the pattern was changed, so that compiled patterns can tell
+		 * whether they are out of date.
+		 */
+		volatile long patternChanges;
+
 		/**
 		 * Pattern to match on application name and profiles.
 		 */
@@ -344,6 +754,7 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 				patterns = new LinkedHashSet<>(patterns);
 			}
 			this.pattern = patterns.toArray(new String[0]);
+			this.patternChanges++;
 		}
 
 	}
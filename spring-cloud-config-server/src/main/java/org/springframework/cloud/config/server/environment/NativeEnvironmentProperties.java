@@ -50,6 +50,14 @@ public class NativeEnvironmentProperties implements EnvironmentRepositoryPropert
 
 	private int order = DEFAULT_ORDER;
 
+	/**
+	 * Flag to indicate that configuration files should be read directly from the search
+	 * locations instead of through Spring Boot's config data support. Requests for files
+	 * that use imports, profile groups or includes, or wildcard search locations still go
+	 * through the config data support.
+	 */
+	private boolean lightweightLoader;
+
 	public Boolean getFailOnError() {
 		return this.failOnError;
 	}
@@ -99,4 +107,12 @@ public class NativeEnvironmentProperties implements EnvironmentRepositoryPropert
 		this.order = order;
 	}
 
+	public boolean isLightweightLoader() {
+		return this.lightweightLoader;
+	}
+
+	public void setLightweightLoader(boolean lightweightLoader) {
+		this.lightweightLoader = lightweightLoader;
+	}
+
 }
@@ -17,6 +17,7 @@
 package org.springframework.cloud.config.server.environment;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -95,6 +96,10 @@ public class NativeEnvironmentRepository implements EnvironmentRepository, Searc
 
 	private final ObservationRegistry observationRegistry;
 
+	private PropertyFileCache propertyFileCache = new PropertyFileCache();
+
+	private boolean lightweightLoader;
+
 	public NativeEnvironmentRepository(ConfigurableEnvironment environment, NativeEnvironmentProperties properties,
 			ObservationRegistry observationRegistry) {
 		this.environment = environment;
@@ -105,6 +110,7 @@ public class NativeEnvironmentRepository implements EnvironmentRepository, Searc
 		this.observationRegistry = observationRegistry;
 		setSearchLocations(properties.getSearchLocations());
 		this.version = properties.getVersion();
+		this.lightweightLoader = properties.isLightweightLoader();
 	}
 
 	public boolean isFailOnError() {
@@ -140,6 +146,12 @@ public class NativeEnvironmentRepository implements EnvironmentRepository, Searc
 	public Environment findOne(String config, String profile, String label, boolean includeOrigin) {
 
 		try {
+			if (this.lightweightLoader) {
+				Environment result = findOneWithLightweightLoader(config, profile, label, includeOrigin);
+				if (result != null) {
+					return result;
+				}
+			}
 			ConfigurableEnvironment environment = getEnvironment(config, profile, label);
 			DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
 			Map<org.springframework.core.env.PropertySource<?>, PropertySourceConfigData> propertySourceToConfigData = new HashMap<>();
@@ -167,6 +179,24 @@ public class NativeEnvironmentRepository implements EnvironmentRepository, Searc
 		}
 	}
 
+	private Environment findOneWithLightweightLoader(String config, String profile, String label,
+			boolean includeOrigin) throws IOException {
+		List<org.springframework.core.env.PropertySource<?>> propertySources = new LightweightConfigFileLoader(
+				new DefaultResourceLoader(), this.propertyFileCache)
+			.load(getLocations(config, profile, label).getLocations(), config, profile);
+		if (propertySources == null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Falling back to config data support for config=" + config + " profile=" + profile);
+			}
+			return null;
+		}
+		ConfigurableEnvironment environment = new StandardEnvironment();
+		propertySources.forEach(environment.getPropertySources()::addLast);
+		return clean(ObservationEnvironmentRepositoryWrapper
+			.wrap(this.observationRegistry, new PassthruEnvironmentRepository(environment))
+			.findOne(config, profile, label, includeOrigin));
+	}
+
 	@Override
 	public Locations getLocations(String application, String profile, String label) {
 		String[] locations = this.searchLocations;
@@ -388,6 +418,30 @@ public class NativeEnvironmentRepository implements EnvironmentRepository, Searc
 		return this.version;
 	}
 
+	public PropertyFileCache getPropertyFileCache() {
+		return this.propertyFileCache;
+	}
+
+	/**
+	 * Sets the cache of parsed configuration files, e.g. to share it between
+	 * repositories. Only files read by the lightweight loader (see
+	 * {@link #setLightweightLoader(boolean)}) are cached, since the config data support
+	 * of Spring Boot can only be given another parser for every application.
+	 * @param propertyFileCache the cache, or {@code null} to parse every file on every
+	 * request
+	 */
+	public void setPropertyFileCache(PropertyFileCache propertyFileCache) {
+		this.propertyFileCache = propertyFileCache;
+	}
+
+	public boolean isLightweightLoader() {
+		return this.lightweightLoader;
+	}
+
+	public void setLightweightLoader(boolean lightweightLoader) {
+		this.lightweightLoader = lightweightLoader;
+	}
+
 	public void setVersion(String version) {
 		this.version = version;
 	}
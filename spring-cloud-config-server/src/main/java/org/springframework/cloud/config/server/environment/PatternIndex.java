@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Finds the values whose patterns match a string, with the semantics of
+ * {@link PatternMatchUtils#simpleMatch(String[], String)}, without evaluating every
+ * pattern. Patterns without a wildcard are looked up in a hash map, and patterns with a
+ * single wildcard in a trie of their prefixes (or, for patterns starting with the
+ * wildcard, of their reversed suffixes). Only patterns with more than one wildcard are
+ * evaluated one by one. Matches are returned in the order the values were added.
+ *
+ * @param <T> the type of the values
+ * @since 4.3.0
+ */
+class PatternIndex<T> {
+
+	private final List<T> values = new ArrayList<>();
+
+	private final Map<String, BitSet> exact = new HashMap<>();
+
+	private final Node prefixes = new Node();
+
+	private final Node suffixes = new Node();
+
+	private final List<Entry> others = new ArrayList<>();
+
+	private final BitSet candidates = new BitSet();
+
+	/**
+	 * Adds a value with its patterns. {@code null} patterns never match.
+	 * @param value the value
+	 * @param patterns the patterns of the value
+	 */
+	void add(T value, String[] patterns) {
+		int index = this.values.size();
+		this.values.add(value);
+		if (patterns == null) {
+			return;
+		}
+		for (String pattern : patterns) {
+			if (pattern == null) {
+				continue;
+			}
+			int wildcard = pattern.indexOf('*');
+			if (wildcard == -1) {
+				this.exact.computeIfAbsent(pattern, key -> new BitSet()).set(index);
+			}
+			else if (pattern.indexOf('*', wildcard + 1) != -1) {
+				this.others.add(new Entry(index, pattern));
+			}
+			else if (wildcard == 0 && pattern.length() > 1) {
+				String suffix = new StringBuilder(pattern.substring(1)).reverse().toString();
+				this.suffixes.insert(suffix).entries.add(new Entry(index, ""));
+			}
+			else {
+				this.prefixes.insert(pattern.substring(0, wildcard))
+					.entries.add(new Entry(index, pattern.substring(wildcard + 1)));
+			}
+		}
+	}
+
+	/**
+	 * Adds a value that is returned by every lookup, for values that decide themselves
+	 * whether they match.
+	 * @param value the value
+	 */
+	void addCandidate(T value) {
+		this.candidates.set(this.values.size());
+		this.values.add(value);
+	}
+
+	/**
+	 * Returns the values with a pattern that matches any of the given strings.
+	 * @param strings the strings to match
+	 * @return the matching values, in the order they were added
+	 */
+	List<T> getMatches(List<String> strings) {
+		BitSet matches = (BitSet) this.candidates.clone();
+		for (String string : strings) {
+			match(string, matches);
+		}
+		List<T> result = new ArrayList<>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			result.add(this.values.get(i));
+		}
+		return result;
+	}
+
+	private void match(String string, BitSet matches) {
+		BitSet exact = this.exact.get(string);
+		if (exact != null) {
+			matches.or(exact);
+		}
+		// prefix (and suffix) patterns: the depth of a node is the length of the prefix
+		Node node = this.prefixes;
+		for (int depth = 0; node != null; depth++) {
+			for (Entry entry : node.entries) {
+				if (string.length() - depth >= entry.pattern.length() && string.endsWith(entry.pattern)) {
+					matches.set(entry.index);
+				}
+			}
+			node = (depth < string.length()) ? node.children.get(string.charAt(depth)) : null;
+		}
+		// suffix patterns: every entry on the path of the reversed string matches
+		node = this.suffixes;
+		for (int depth = 0; node != null; depth++) {
+			for (Entry entry : node.entries) {
+				matches.set(entry.index);
+			}
+			node = (depth < string.length()) ? node.children.get(string.charAt(string.length() - 1 - depth)) : null;
+		}
+		for (Entry entry : this.others) {
+			if (!matches.get(entry.index) && PatternMatchUtils.simpleMatch(entry.pattern, string)) {
+				matches.set(entry.index);
+			}
+		}
+	}
+
+	private static final class Node {
+
+		private final Map<Character, Node> children = new HashMap<>();
+
+		private final List<Entry> entries = new ArrayList<>();
+
+		private Node insert(String key) {
+			Node node = this;
+			for (int i = 0; i < key.length(); i++) {
+				node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+			}
+			return node;
+		}
+
+	}
+
+	/**
+	 * A pattern of the value with the given index: the suffix of a pattern in the prefix
+	 * trie, or the whole pattern of the patterns with several wildcards.
+	 */
+	private static final class Entry {
+
+		private final int index;
+
+		private final String pattern;
+
+		private Entry(int index, String pattern) {
+			this.index = index;
+			this.pattern = pattern;
+		}
+
+	}
+
+}
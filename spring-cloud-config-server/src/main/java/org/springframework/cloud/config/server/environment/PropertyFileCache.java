@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * Size bounded cache of parsed configuration files. Entries are keyed by the name of the
+ * property source, the canonical path of the file, its size and its last modification
+ * time, so a file is parsed again as soon as it changes on disk. Files that are not on
+ * the file system (e.g. in a jar) are never cached.
+ *
+ * @since 4.3.0
+ * @see NativeEnvironmentRepository#setPropertyFileCache(PropertyFileCache)
+ */
+public class PropertyFileCache {
+
+	/**
+	 * Default maximum number of parsed files in the cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private final int maxSize;
+
+	private final Map<Key, List<PropertySource<?>>> entries;
+
+	private final AtomicLong parseCount = new AtomicLong();
+
+	public PropertyFileCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	public PropertyFileCache(int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<PropertySource<?>>> eldest) {
+				return size() > PropertyFileCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the property sources of the given resource, parsing it with the given loader
+	 * unless it was parsed before and has not changed since.
+	 * @param name the name of the property source
+	 * @param resource the resource to load
+	 * @param loader the loader used to parse the resource
+	 * @return the property sources of the resource
+	 * @throws IOException if the resource cannot be read
+	 */
+	public List<PropertySource<?>> load(String name, Resource resource, PropertySourceLoader loader)
+			throws IOException {
+		if (!resource.isFile()) {
+			return loader.load(name, resource);
+		}
+		File file = resource.getFile();
+		Key key = new Key(name, file.getCanonicalPath(), file.length(), file.lastModified());
+		List<PropertySource<?>> propertySources;
+		synchronized (this.entries) {
+			propertySources = this.entries.get(key);
+		}
+		if (propertySources == null) {
+			this.parseCount.incrementAndGet();
+			propertySources = loader.load(name, resource);
+			synchronized (this.entries) {
+				this.entries.put(key, propertySources);
+			}
+		}
+		return propertySources;
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * @return the number of parsed files in the cache
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	/**
+	 * @return the number of files on the file system parsed because they were not in the
+	 * cache
+	 */
+	public long getParseCount() {
+		return this.parseCount.get();
+	}
+
+	private static final class Key {
+
+		private final String name;
+
+		private final String path;
+
+		private final long size;
+
+		private final long lastModified;
+
+		private Key(String name, String path, long size, long lastModified) {
+			this.name = name;
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Key other = (Key) o;
+			return this.size == other.size && this.lastModified == other.lastModified
+					&& Objects.equals(this.name, other.name) && Objects.equals(this.path, other.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.name, this.path, this.size, this.lastModified);
+		}
+
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lets only one call per key be in flight at any time. Callers that arrive while a call
+ * for the same key is running wait for it and share its result (or exception) instead of
+ * running the call again. Waiting callers that do not get a result within the maximum
+ * wait time run the call themselves.
+ *
+ * @since 4.3.0
+ * @see CoalescingEnvironmentRepository
+ */
+public class RequestCoalescer {
+
+	private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+	private final Duration maxWait;
+
+	private final AtomicLong executionCount = new AtomicLong();
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	public RequestCoalescer(Duration maxWait) {
+		Assert.notNull(maxWait, "maxWait must not be null");
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Runs the given call, unless a call for the same key is already in flight, in which
+	 * case its result is returned.
+	 * @param key the key identifying identical calls
+	 * @param call the call to run
+	 * @param <T> the result type
+	 * @return the result of the call
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T execute(Object key, Supplier<T> call) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> running = this.inFlight.putIfAbsent(key, future);
+		if (running == null) {
+			return (T) run(key, future, call);
+		}
+		this.coalescedCount.incrementAndGet();
+		try {
+			return (T) running.get(this.maxWait.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			this.timeoutCount.incrementAndGet();
+			this.executionCount.incrementAndGet();
+			return call.get();
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (ex.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for in flight call for " + key, ex);
+		}
+	}
+
+	private Object run(Object key, CompletableFuture<Object> future, Supplier<?> call) {
+		this.executionCount.incrementAndGet();
+		try {
+			Object result = call.get();
+			future.complete(result);
+			return result;
+		}
+		catch (RuntimeException | Error ex) {
+			future.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(key, future);
+		}
+	}
+
+	public Duration getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * @return the number of calls that were actually run
+	 */
+	public long getExecutionCount() {
+		return this.executionCount.get();
+	}
+
+	/**
+	 * @return the number of callers that waited for a call already in flight
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.get();
+	}
+
+	/**
+	 * @return the number of waiting callers that gave up and ran the call themselves
+	 */
+	public long getTimeoutCount() {
+		return this.timeoutCount.get();
+	}
+
+	/**
+	 * @return the number of calls currently in flight
+	 */
+	public int getInFlightCount() {
+		return this.inFlight.size();
+	}
+
+}
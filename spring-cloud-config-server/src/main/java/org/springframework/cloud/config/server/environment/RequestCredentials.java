@@ -0,0 +1,275 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.server.environment.secretmanager.HttpHeaderGoogleConfigProvider;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * The credentials of the current request that backends such as Vault or Google Secret
+ * Manager read from its headers. Environments fetched with one credential must not be
+ * shared with requests that have another (or none), so caches and coalescers include
+ * them in their keys.
+ *
+ * @since 4.3.0
+ */
+final class RequestCredentials {
+
+	static final List<String> HEADERS = List.of(ConfigClientProperties.TOKEN_HEADER,
+			HttpHeaderGoogleConfigProvider.PROJECT_ID_HEADER, HttpHeaderGoogleConfigProvider.PREFIX_HEADER);
+
+	private RequestCredentials() {
+	}
+
+	/**
+	 * Returns a digest of the credential headers of the current request, so that the
+	 * credentials themselves are not kept in keys.
+	 * @return the digest, or {@code null} if there is no request or it has no credential
+	 * headers
+	 */
+	static String current() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+			return null;
+		}
+		return digest(servletAttributes.getRequest());
+	}
+
+	/**
+	 * Returns request attributes for work that may outlive the current request, holding
+	 * a snapshot of the request (its headers, parameters, cookies, addresses and URL)
+	 * instead of the request itself, which is recycled once it completes. The body of the
+	 * request is not available, methods without a snapshotted value return {@code null},
+	 * {@code false} or {@code 0}.
+	 * @return the detached request attributes, or {@code null} if there is no request
+	 */
+	static RequestAttributes detachedRequestAttributes() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+			return null;
+		}
+		HttpServletRequest request = servletAttributes.getRequest();
+		HttpServletRequest detached = (HttpServletRequest) Proxy.newProxyInstance(
+				RequestCredentials.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+				new DetachedRequest(request));
+		return new ServletRequestAttributes(detached);
+	}
+
+	private static String digest(HttpServletRequest request) {
+		MessageDigest digest = null;
+		for (String header : HEADERS) {
+			String value = request.getHeader(header);
+			if (value == null) {
+				continue;
+			}
+			if (digest == null) {
+				digest = newDigest();
+			}
+			digest.update(header.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		return (digest != null) ? HexFormat.of().formatHex(digest.digest()) : null;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * A snapshot of a request, taken while the request is still active.
+	 */
+	private static final class DetachedRequest implements InvocationHandler {
+
+		private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+
+		private final Map<String, String[]> parameters = new LinkedHashMap<>();
+
+		private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+		private final Map<String, Object> values = new HashMap<>();
+
+		private final Cookie[] cookies;
+
+		private final List<Locale> locales;
+
+		private DetachedRequest(HttpServletRequest request) {
+			for (String name : Collections.list(request.getHeaderNames())) {
+				this.headers.put(name, Collections.list(request.getHeaders(name)));
+			}
+			request.getParameterMap().forEach((name, value) -> this.parameters.put(name, value.clone()));
+			this.cookies = copyCookies(request.getCookies());
+			this.locales = Collections.list(request.getLocales());
+			this.values.put("getMethod", request.getMethod());
+			this.values.put("getScheme", request.getScheme());
+			this.values.put("getProtocol", request.getProtocol());
+			this.values.put("getServerName", request.getServerName());
+			this.values.put("getServerPort", request.getServerPort());
+			this.values.put("getRequestURI", request.getRequestURI());
+			this.values.put("getRequestURL", request.getRequestURL().toString());
+			this.values.put("getContextPath", request.getContextPath());
+			this.values.put("getServletPath", request.getServletPath());
+			this.values.put("getPathInfo", request.getPathInfo());
+			this.values.put("getQueryString", request.getQueryString());
+			this.values.put("getRemoteAddr", request.getRemoteAddr());
+			this.values.put("getRemoteHost", request.getRemoteHost());
+			this.values.put("getRemotePort", request.getRemotePort());
+			this.values.put("getLocalAddr", request.getLocalAddr());
+			this.values.put("getLocalName", request.getLocalName());
+			this.values.put("getLocalPort", request.getLocalPort());
+			this.values.put("getLocale", request.getLocale());
+			this.values.put("getCharacterEncoding", request.getCharacterEncoding());
+			this.values.put("getContentType", request.getContentType());
+			this.values.put("getAuthType", request.getAuthType());
+			this.values.put("getRemoteUser", request.getRemoteUser());
+			this.values.put("getUserPrincipal", request.getUserPrincipal());
+			this.values.put("isSecure", request.isSecure());
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			return switch (method.getName()) {
+				case "getHeader" -> getHeader((String) args[0]);
+				case "getHeaders" -> Collections.enumeration(this.headers.getOrDefault((String) args[0], List.of()));
+				case "getHeaderNames" -> Collections.enumeration(this.headers.keySet());
+				case "getIntHeader" -> (getHeader((String) args[0]) != null)
+						? Integer.parseInt(getHeader((String) args[0])) : -1;
+				case "getParameter" -> getParameter((String) args[0]);
+				case "getParameterValues" -> getParameterValues((String) args[0]);
+				case "getParameterNames" -> Collections.enumeration(this.parameters.keySet());
+				case "getParameterMap" -> getParameterMap();
+				case "getCookies" -> copyCookies(this.cookies);
+				case "getLocales" -> Collections.enumeration(this.locales);
+				case "getRequestURL" -> new StringBuffer((String) this.values.get("getRequestURL"));
+				case "getContentLength" -> -1;
+				case "getContentLengthLong" -> -1L;
+				case "getDateHeader" -> getDateHeader((String) args[0]);
+				case "getAttribute" -> this.attributes.get((String) args[0]);
+				case "getAttributeNames" -> Collections.enumeration(this.attributes.keySet());
+				case "setAttribute" -> setAttribute((String) args[0], args[1]);
+				case "removeAttribute" -> this.attributes.remove((String) args[0]);
+				case "equals" -> proxy == args[0];
+				case "hashCode" -> System.identityHashCode(proxy);
+				case "toString" -> "Detached request " + this.values.get("getMethod") + " "
+						+ this.values.get("getRequestURI");
+				default -> (args == null && this.values.containsKey(method.getName()))
+						? this.values.get(method.getName()) : defaultValue(method.getReturnType());
+			};
+		}
+
+		private String getHeader(String name) {
+			List<String> values = this.headers.get(name);
+			return (values != null && !values.isEmpty()) ? values.get(0) : null;
+		}
+
+		private long getDateHeader(String name) {
+			String value = getHeader(name);
+			if (value == null) {
+				return -1L;
+			}
+			try {
+				return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+			}
+			catch (DateTimeParseException e) {
+				throw new IllegalArgumentException("Cannot parse date value '" + value + "' of header " + name, e);
+			}
+		}
+
+		private String getParameter(String name) {
+			String[] values = this.parameters.get(name);
+			return (values != null && values.length > 0) ? values[0] : null;
+		}
+
+		private String[] getParameterValues(String name) {
+			String[] values = this.parameters.get(name);
+			return (values != null) ? values.clone() : null;
+		}
+
+		private Map<String, String[]> getParameterMap() {
+			Map<String, String[]> copy = new LinkedHashMap<>();
+			this.parameters.forEach((name, value) -> copy.put(name, value.clone()));
+			return Collections.unmodifiableMap(copy);
+		}
+
+		private Object setAttribute(String name, Object value) {
+			if (value != null) {
+				this.attributes.put(name, value);
+			}
+			else {
+				this.attributes.remove(name);
+			}
+			return null;
+		}
+
+		private static Cookie[] copyCookies(Cookie[] cookies) {
+			if (cookies == null) {
+				return null;
+			}
+			Cookie[] copy = new Cookie[cookies.length];
+			for (int i = 0; i < cookies.length; i++) {
+				copy[i] = (Cookie) cookies[i].clone();
+			}
+			return copy;
+		}
+
+		private static Object defaultValue(Class<?> type) {
+			if (type == boolean.class) {
+				return false;
+			}
+			if (type == int.class) {
+				return 0;
+			}
+			if (type == long.class) {
+				return 0L;
+			}
+			return null;
+		}
+
+	}
+
+}
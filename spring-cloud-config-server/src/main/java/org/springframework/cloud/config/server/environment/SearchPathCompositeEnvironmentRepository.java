@@ -19,6 +19,7 @@ package org.springframework.cloud.config.server.environment;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 import io.micrometer.observation.ObservationRegistry;
 
@@ -42,17 +43,20 @@ public class SearchPathCompositeEnvironmentRepository extends CompositeEnvironme
 		super(environmentRepositories, observationRegistry, failOnError);
 	}
 
+	/**
+	 * Returns the combined locations of all repositories. The version is the comma
+	 * separated list of the versions of all repositories, or {@code null} if any of them
+	 * is not versioned (or failed), so that callers comparing versions see every change.
+	 */
 	@Override
 	public Locations getLocations(String application, String profile, String label) {
 		List<String> locations = new ArrayList<>();
+		List<String> versions = new ArrayList<>();
 		for (EnvironmentRepository repo : this.environmentRepositories) {
 			try {
-				if (repo instanceof SearchPathLocator searchPathLocator) {
-					addForSearchPathLocators(application, profile, label, locations, searchPathLocator);
-				}
-				else if (repo instanceof ObservationEnvironmentRepositoryWrapper wrapper
-						&& wrapper.getDelegate() instanceof SearchPathLocator searchPathLocator) {
-					addForSearchPathLocators(application, profile, label, locations, searchPathLocator);
+				SearchPathLocator searchPathLocator = getSearchPathLocator(repo);
+				if (searchPathLocator != null) {
+					addForSearchPathLocators(application, profile, label, locations, versions, searchPathLocator);
 				}
 			}
 			catch (RepositoryException ex) {
@@ -60,16 +64,92 @@ public class SearchPathCompositeEnvironmentRepository extends CompositeEnvironme
 					throw ex;
 				}
 				else {
+					versions.add(null);
 					log.info("Error finding locations for " + repo, ex);
 				}
 			}
 		}
-		return new Locations(application, profile, label, null, locations.toArray(new String[locations.size()]));
+		return new Locations(application, profile, label, joinVersions(versions),
+				locations.toArray(new String[locations.size()]));
+	}
+
+	/**
+	 * Passes the combined locations of all repositories to the callback, holding on to
+	 * the locations of each repository (see
+	 * {@link SearchPathLocator#withLocations(String, String, String, Function)}) until
+	 * the callback returns. The version is joined as in
+	 * {@link #getLocations(String, String, String)}.
+	 */
+	@Override
+	public <T> T withLocations(String application, String profile, String label, Function<Locations, T> callback) {
+		return withLocations(0, new ArrayList<>(), new ArrayList<>(), application, profile, label, callback);
+	}
+
+	private <T> T withLocations(int index, List<String> locations, List<String> versions, String application,
+			String profile, String label, Function<Locations, T> callback) {
+		if (index == this.environmentRepositories.size()) {
+			return callback.apply(new Locations(application, profile, label, joinVersions(versions),
+					locations.toArray(new String[locations.size()])));
+		}
+		EnvironmentRepository repo = this.environmentRepositories.get(index);
+		SearchPathLocator searchPathLocator = getSearchPathLocator(repo);
+		if (searchPathLocator == null) {
+			return withLocations(index + 1, locations, versions, application, profile, label, callback);
+		}
+		boolean[] entered = new boolean[1];
+		try {
+			return searchPathLocator.withLocations(application, profile, label, repoLocations -> {
+				entered[0] = true;
+				List<String> combinedLocations = new ArrayList<>(locations);
+				combinedLocations.addAll(Arrays.asList(repoLocations.getLocations()));
+				List<String> combinedVersions = new ArrayList<>(versions);
+				combinedVersions.add(repoLocations.getVersion());
+				return withLocations(index + 1, combinedLocations, combinedVersions, application, profile, label,
+						callback);
+			});
+		}
+		catch (RepositoryException ex) {
+			// only skip this repository if it failed before it provided its locations
+			if (entered[0] || failOnError) {
+				throw ex;
+			}
+			log.info("Error finding locations for " + repo, ex);
+			List<String> skippedVersions = new ArrayList<>(versions);
+			skippedVersions.add(null);
+			return withLocations(index + 1, locations, skippedVersions, application, profile, label, callback);
+		}
+	}
+
+	@Override
+	public boolean changesFiles() {
+		for (EnvironmentRepository repo : this.environmentRepositories) {
+			SearchPathLocator searchPathLocator = getSearchPathLocator(repo);
+			if (searchPathLocator != null && searchPathLocator.changesFiles()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private SearchPathLocator getSearchPathLocator(EnvironmentRepository repo) {
+		if (unwrap(repo) instanceof SearchPathLocator searchPathLocator) {
+			return searchPathLocator;
+		}
+		return null;
 	}
 
 	private void addForSearchPathLocators(String application, String profile, String label, List<String> locations,
-			SearchPathLocator searchPathLocator) {
-		locations.addAll(Arrays.asList(searchPathLocator.getLocations(application, profile, label).getLocations()));
+			List<String> versions, SearchPathLocator searchPathLocator) {
+		Locations repoLocations = searchPathLocator.getLocations(application, profile, label);
+		locations.addAll(Arrays.asList(repoLocations.getLocations()));
+		versions.add(repoLocations.getVersion());
+	}
+
+	private static String joinVersions(List<String> versions) {
+		if (versions.isEmpty() || versions.contains(null)) {
+			return null;
+		}
+		return String.join(",", versions);
 	}
 
 }
@@ -18,6 +18,7 @@ package org.springframework.cloud.config.server.environment;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Strategy for locating a search path for resource (e.g. in the file system or
@@ -30,6 +31,35 @@ public interface SearchPathLocator {
 
 	Locations getLocations(String application, String profile, String label);
 
+	/**
+	 * Passes the locations of the given label to the callback. Locators that change the
+	 * files at their locations themselves (e.g. by checking out another label of a git
+	 * repository) do not do so before the callback returns, so that the callback can
+	 * safely read them. The default simply calls
+	 * {@link #getLocations(String, String, String)}.
+	 * @param application the application name
+	 * @param profile the profile name
+	 * @param label the label
+	 * @param callback the callback reading the files at the locations
+	 * @param <T> the type of the result
+	 * @return the result of the callback
+	 * @since 4.3.0
+	 */
+	default <T> T withLocations(String application, String profile, String label, Function<Locations, T> callback) {
+		return callback.apply(getLocations(application, profile, label));
+	}
+
+	/**
+	 * Returns whether the locator itself changes the files at its locations, e.g. by
+	 * checking out another label, so that they should only be read in
+	 * {@link #withLocations(String, String, String, Function)}.
+	 * @return whether the files at the locations may change
+	 * @since 4.3.0
+	 */
+	default boolean changesFiles() {
+		return false;
+	}
+
 	/**
 	 * Locations POJO.
 	 */
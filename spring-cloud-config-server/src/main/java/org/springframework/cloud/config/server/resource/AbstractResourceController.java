@@ -5,7 +5,11 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.encryption.ResourceEncryptor;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.support.EnvironmentPlaceholderResolver;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.ServletWebRequest;
@@ -20,9 +24,6 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
-import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.prepareEnvironment;
-import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.resolvePlaceholders;
-
 public abstract class AbstractResourceController {
 
     protected final Log logger = LogFactory.getLog(getClass());
@@ -56,8 +57,8 @@ public abstract class AbstractResourceController {
         return path.substring(path.indexOf(stem) + stem.length());
     }
 
-    protected synchronized String retrieveInternal(ServletWebRequest request, String name, String profile, String label, String path,
-                                                   boolean resolvePlaceholders, String acceptedCharset) throws IOException {
+    protected String retrieveInternal(ServletWebRequest request, String name, String profile, String label, String path,
+                                      boolean resolvePlaceholders, String acceptedCharset) throws IOException {
         name = Environment.normalize(name);
         label = Environment.normalize(label);
         Resource resource = this.resourceRepository.findOne(name, profile, label, path);
@@ -79,23 +80,55 @@ public abstract class AbstractResourceController {
             if (ext != null) {
                 ext = ext.toLowerCase(Locale.ROOT);
             }
-            Environment environment = this.environmentRepository.findOne(name, profile, label, false);
-            if (resolvePlaceholders) {
-                text = resolvePlaceholders(prepareEnvironment(environment), text);
-            }
+            ResourceEncryptor re = null;
             if (ext != null && encryptEnabled && plainTextEncryptEnabled) {
-                ResourceEncryptor re = this.resourceEncryptorMap.get(ext);
+                re = this.resourceEncryptorMap.get(ext);
                 if (re == null) {
                     logger.warn("Cannot decrypt for extension " + ext);
-                } else {
-                    text = re.decrypt(text, environment);
                 }
             }
+            // the environment is only needed to resolve placeholders or decrypt values
+            if (!resolvePlaceholders && re == null) {
+                return text;
+            }
+            Environment environment = this.environmentRepository.findOne(name, profile, label, false);
+            if (resolvePlaceholders) {
+                text = new EnvironmentPlaceholderResolver(environment).resolvePlaceholders(text);
+            }
+            if (re != null) {
+                text = re.decrypt(text, environment);
+            }
             return text;
         }
     }
 
-    protected synchronized byte[] binaryInternal(ServletWebRequest request, String name, String profile, String label, String path) throws IOException {
+    protected byte[] binaryInternal(ServletWebRequest request, String name, String profile, String label, String path) throws IOException {
+        Resource resource = findBinaryResource(request, name, profile, label, path);
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream is = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(is);
+        }
+    }
+
+    protected ResponseEntity<Resource> binaryResourceInternal(ServletWebRequest request, String name, String profile, String label,
+                                                              String path) throws IOException {
+        Resource resource = findBinaryResource(request, name, profile, label, path);
+        if (resource == null) {
+            return null;
+        }
+        if (request != null && !checkIfRange(request, resource)) {
+            // an input stream resource is written as a whole, even if a range was requested
+            return ResponseEntity.ok()
+                    .contentLength(resource.contentLength())
+                    .body(new InputStreamResource(resource.getInputStream(), resource.getDescription()));
+        }
+        // the resource is streamed, and the requested ranges of it if any
+        return ResponseEntity.ok().body(resource);
+    }
+
+    private Resource findBinaryResource(ServletWebRequest request, String name, String profile, String label, String path) {
         name = Environment.normalize(name);
         label = Environment.normalize(label);
         Resource resource = this.resourceRepository.findOne(name, profile, label, path);
@@ -103,10 +136,24 @@ public abstract class AbstractResourceController {
         if (checkNotModified(request, resource)) {
             return null;
         }
+        return resource;
+    }
 
-        prepareEnvironment(this.environmentRepository.findOne(name, profile, label));
-        try (InputStream is = resource.getInputStream()) {
-            return StreamUtils.copyToByteArray(is);
+    // only dates can match an If-Range header, as no entity tags are generated for resources
+    private boolean checkIfRange(ServletWebRequest request, Resource resource) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || request.getHeader(HttpHeaders.RANGE) == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            long date = request.getRequest().getDateHeader(HttpHeaders.IF_RANGE);
+            long lastModified = resource.lastModified();
+            return date >= 0 && lastModified > 0 && date / 1000 == lastModified / 1000;
+        } catch (Exception ex) {
+            return false;
         }
     }
 
@@ -5,8 +5,10 @@ import java.util.Map;
 
 import org.springframework.cloud.config.server.encryption.ResourceEncryptor;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -47,17 +49,17 @@ public class ResourceController extends AbstractResourceController {
 	}
 
 	@GetMapping(value = "/{name}/{profile}/{label}/**", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-	public byte[] binary(@PathVariable String name, @PathVariable String profile, @PathVariable String label,
-			ServletWebRequest request) throws IOException {
+	public ResponseEntity<Resource> binary(@PathVariable String name, @PathVariable String profile,
+			@PathVariable String label, ServletWebRequest request) throws IOException {
 		String path = getFilePath(request, name, profile, label);
-		return binaryInternal(request, name, profile, label, path);
+		return binaryResourceInternal(request, name, profile, label, path);
 	}
 
 	@GetMapping(value = "/{name}/{profile}/{path:.*}", params = "useDefaultLabel",
 			produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-	public byte[] binaryDefault(@PathVariable String name, @PathVariable String profile, @PathVariable String path,
-			ServletWebRequest request) throws IOException {
-		return binaryInternal(request, name, profile, null, path);
+	public ResponseEntity<Resource> binaryDefault(@PathVariable String name, @PathVariable String profile,
+			@PathVariable String path, ServletWebRequest request) throws IOException {
+		return binaryResourceInternal(request, name, profile, null, path);
 	}
 
 	// Used in unit tests
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.support;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.environment.PropertyValueDescriptor;
+
+/**
+ * Resolves {@code ${...}} placeholders against the properties of an {@link Environment}.
+ * The property sources are merged into a single index once (the first property source
+ * containing a key wins), so every lookup is a single hash lookup no matter how many
+ * property sources there are. Placeholders can be nested and can have default values
+ * ({@code ${key:default}}); unresolvable placeholders are left as they are. Placeholders
+ * escaped with one or two backslashes ({@code \${...}}, or {@code \\${...}} in JSON) are
+ * rendered as a literal {@code ${...}}.
+ *
+ * @since 4.3.0
+ */
+public class EnvironmentPlaceholderResolver {
+
+	private static final String PREFIX = "${";
+
+	private static final char SUFFIX = '}';
+
+	private static final char SIMPLE_PREFIX = '{';
+
+	private static final char SEPARATOR = ':';
+
+	private static final char ESCAPE = '\\';
+
+	private final Map<String, Object> properties;
+
+	public EnvironmentPlaceholderResolver(Environment environment) {
+		this.properties = index(environment);
+	}
+
+	private static Map<String, Object> index(Environment environment) {
+		Map<String, Object> properties = new HashMap<>();
+		if (environment == null) {
+			return properties;
+		}
+		List<PropertySource> sources = environment.getPropertySources();
+		for (PropertySource source : sources) {
+			for (Map.Entry<?, ?> entry : source.getSource().entrySet()) {
+				String key = String.valueOf(entry.getKey());
+				if (!properties.containsKey(key)) {
+					properties.put(key, entry.getValue());
+				}
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns the value of the given property as a string.
+	 * @param key the property name
+	 * @return the value, or {@code null} if there is none
+	 */
+	public String getProperty(String key) {
+		Object value = this.properties.get(key);
+		if (value instanceof PropertyValueDescriptor descriptor) {
+			value = descriptor.getValue();
+		}
+		return (value != null) ? value.toString() : null;
+	}
+
+	/**
+	 * Resolves the placeholders in the given text.
+	 * @param text the text to resolve
+	 * @return the resolved text
+	 * @throws IllegalArgumentException if placeholders refer to each other in a cycle
+	 */
+	public String resolvePlaceholders(String text) {
+		if (text == null || !text.contains(PREFIX)) {
+			return text;
+		}
+		return parse(text, new HashSet<>());
+	}
+
+	private String parse(String text, Set<String> visiting) {
+		int start = text.indexOf(PREFIX);
+		if (start < 0) {
+			return text;
+		}
+		StringBuilder result = new StringBuilder(text.length());
+		int position = 0;
+		while (start >= 0) {
+			if (start > 0 && text.charAt(start - 1) == ESCAPE) {
+				int escape = (start > 1 && text.charAt(start - 2) == ESCAPE) ? start - 2 : start - 1;
+				result.append(text, position, escape).append(PREFIX);
+				position = start + PREFIX.length();
+			}
+			else {
+				int end = findPlaceholderEnd(text, start + PREFIX.length());
+				if (end < 0) {
+					break;
+				}
+				String value = resolvePlaceholder(text.substring(start + PREFIX.length(), end), visiting);
+				result.append(text, position, start).append((value != null) ? value : text.substring(start, end + 1));
+				position = end + 1;
+			}
+			start = text.indexOf(PREFIX, position);
+		}
+		result.append(text, position, text.length());
+		return result.toString();
+	}
+
+	private String resolvePlaceholder(String placeholder, Set<String> visiting) {
+		String key = placeholder;
+		String defaultValue = null;
+		int separator = findSeparator(placeholder);
+		if (separator >= 0) {
+			key = placeholder.substring(0, separator);
+			defaultValue = placeholder.substring(separator + 1);
+		}
+		key = parse(key, visiting);
+		if (!visiting.add(key)) {
+			throw new IllegalArgumentException("Circular placeholder reference '" + key + "' in property definitions");
+		}
+		try {
+			String value = getProperty(key);
+			if (value != null) {
+				return parse(value, visiting);
+			}
+			return (defaultValue != null) ? parse(defaultValue, visiting) : null;
+		}
+		finally {
+			visiting.remove(key);
+		}
+	}
+
+	private static int findPlaceholderEnd(String text, int from) {
+		int nested = 0;
+		for (int i = from; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == SUFFIX) {
+				if (nested == 0) {
+					return i;
+				}
+				nested--;
+			}
+			else if (c == SIMPLE_PREFIX) {
+				nested++;
+			}
+		}
+		return -1;
+	}
+
+	private static int findSeparator(String placeholder) {
+		int nested = 0;
+		for (int i = 0; i < placeholder.length(); i++) {
+			char c = placeholder.charAt(i);
+			if (c == SIMPLE_PREFIX) {
+				nested++;
+			}
+			else if (c == SUFFIX) {
+				nested--;
+			}
+			else if (c == SEPARATOR && nested == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -35,6 +35,15 @@ public class EnvironmentPropertySource extends PropertySource<Environment> {
 		super("cloudEnvironment", sources);
 	}
 
+	/**
+	 * Wraps the given environment in a {@link StandardEnvironment} to resolve
+	 * placeholders.
+	 * @param environment the environment
+	 * @return a standard environment backed by the given environment
+	 * @deprecated since 4.3.0 in favor of {@link EnvironmentPlaceholderResolver}, which
+	 * indexes the properties once instead of scanning every property source per lookup
+	 */
+	@Deprecated
 	public static StandardEnvironment prepareEnvironment(Environment environment) {
 		StandardEnvironment standardEnvironment = new StandardEnvironment();
 		standardEnvironment.getPropertySources().remove(StandardEnvironment.SYSTEM_PROPERTIES_PROPERTY_SOURCE_NAME);
@@ -43,6 +52,17 @@ public class EnvironmentPropertySource extends PropertySource<Environment> {
 		return standardEnvironment;
 	}
 
+	/**
+	 * Resolves the placeholders in the given text, leaving escaped placeholders as they
+	 * are.
+	 * @param preparedEnvironment the environment returned by
+	 * {@link #prepareEnvironment(Environment)}
+	 * @param text the text to resolve
+	 * @return the resolved text
+	 * @deprecated since 4.3.0 in favor of
+	 * {@link EnvironmentPlaceholderResolver#resolvePlaceholders(String)}
+	 */
+	@Deprecated
 	public static String resolvePlaceholders(StandardEnvironment preparedEnvironment, String text) {
 		// Mask out escaped placeholders
 		text = ESCAPED_PLACEHOLDERS.matcher(text).replaceAll("\\$_{");
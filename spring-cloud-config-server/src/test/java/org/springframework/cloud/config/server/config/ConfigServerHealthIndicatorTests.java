@@ -16,7 +16,9 @@
 
 package org.springframework.cloud.config.server.config;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,9 +26,11 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.config.ConfigServerHealthIndicator.Repository;
+import org.springframework.cloud.config.server.environment.CircuitBreakerEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -89,4 +93,17 @@ public class ConfigServerHealthIndicatorTests {
 		assertThat(this.indicator.health().getStatus()).as("wrong default status").isEqualTo(Status.UP);
 	}
 
+	@Test
+	public void circuitBreakersAreReported() {
+		when(this.repository.findOne(anyString(), anyString(), Mockito.<String>isNull(), anyBoolean()))
+			.thenReturn(this.environment);
+		CircuitBreakerEnvironmentRepository circuitBreaker = new CircuitBreakerEnvironmentRepository("git",
+				this.repository, 1, Duration.ofMinutes(1), 10);
+		this.indicator.reportCircuitBreakers(Collections.singletonList(circuitBreaker));
+		Health health = this.indicator.health();
+		assertThat(health.getStatus()).isEqualTo(Status.UP);
+		assertThat(health.getDetails()).extractingByKey("circuitBreakers")
+			.isEqualTo(Collections.singletonMap("git", Map.of("open", false, "staleCount", 0L, "rejectedCount", 0L)));
+	}
+
 }
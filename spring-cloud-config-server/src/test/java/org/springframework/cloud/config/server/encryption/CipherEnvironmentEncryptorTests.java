@@ -16,10 +16,17 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.runners.Parameterized.Parameters;
@@ -170,4 +177,108 @@ public class CipherEnvironmentEncryptorTests {
 			.isEqualTo(encryptedSecret);
 	}
 
+	@Test
+	public void shouldNotCopySourcesWithoutCipherValues() {
+		CipherEnvironmentEncryptor encryptor = new CipherEnvironmentEncryptor(keys -> {
+			throw new IllegalStateException("should not be called");
+		});
+		Environment environment = new Environment("name", "profile", "label");
+		PropertySource source = new PropertySource("a", Collections.<Object, Object>singletonMap("foo", "bar"));
+		environment.add(source);
+
+		assertThat(encryptor.decrypt(environment).getPropertySources().get(0)).isSameAs(source);
+	}
+
+	@Test
+	public void shouldDecryptOnceWithCache() {
+		TextEncryptor textEncryptor = new EncryptorFactory("deadbeef").create("foo");
+		AtomicInteger locates = new AtomicInteger();
+		CipherEnvironmentEncryptor encryptor = new CipherEnvironmentEncryptor(keys -> {
+			locates.incrementAndGet();
+			return textEncryptor;
+		});
+		encryptor.setDecryptedValueCache(new DecryptedValueCache(10, Duration.ofMinutes(1)));
+		String secret = randomUUID().toString();
+		Environment environment = new Environment("name", "profile", "label");
+		environment.add(new PropertySource("a", Collections.<Object, Object>singletonMap(environment.getName(),
+				"{cipher}" + textEncryptor.encrypt(secret))));
+
+		assertThat(encryptor.decrypt(environment).getPropertySources().get(0).getSource().get(environment.getName()))
+			.isEqualTo(secret);
+		assertThat(encryptor.decrypt(environment).getPropertySources().get(0).getSource().get(environment.getName()))
+			.isEqualTo(secret);
+		assertThat(locates).hasValue(1);
+		assertThat(encryptor.getDecryptedValueCache().getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotCacheFailedDecryption() {
+		TextEncryptor textEncryptor = new EncryptorFactory("deadbeef").create("foo");
+		AtomicInteger locates = new AtomicInteger();
+		CipherEnvironmentEncryptor encryptor = new CipherEnvironmentEncryptor(keys -> {
+			locates.incrementAndGet();
+			return textEncryptor;
+		});
+		encryptor.setDecryptedValueCache(new DecryptedValueCache(10, Duration.ofMinutes(1)));
+		Environment environment = new Environment("name", "profile", "label");
+		environment.add(new PropertySource("a", Collections.<Object, Object>singletonMap(environment.getName(),
+				"{cipher}" + new EncryptorFactory("deadbeef").create("dummykey").encrypt("secret"))));
+
+		assertThat(encryptor.decrypt(environment)
+			.getPropertySources()
+			.get(0)
+			.getSource()
+			.get("invalid." + environment.getName())).isEqualTo("<n/a>");
+		assertThat(encryptor.decrypt(environment)
+			.getPropertySources()
+			.get(0)
+			.getSource()
+			.get("invalid." + environment.getName())).isEqualTo("<n/a>");
+		assertThat(locates).hasValue(2);
+		assertThat(encryptor.getDecryptedValueCache().size()).isZero();
+	}
+
+	@Test
+	public void shouldDecryptInParallelPreservingOrder() {
+		TextEncryptor textEncryptor = new EncryptorFactory("deadbeef").create("foo");
+		TextEncryptor otherEncryptor = new EncryptorFactory("deadbeef").create("dummykey");
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		TextEncryptorLocator locator = keys -> {
+			threads.add(Thread.currentThread().getName());
+			return textEncryptor;
+		};
+		Environment environment = new Environment("name", "profile", "label");
+		for (int i = 0; i < 3; i++) {
+			Map<Object, Object> source = new LinkedHashMap<>();
+			for (int j = 0; j < 20; j++) {
+				source.put("plain" + j, "value" + j);
+				source.put("secret" + j, "{cipher}" + textEncryptor.encrypt("secret" + i + j));
+				source.put("broken" + j, "{cipher}" + otherEncryptor.encrypt("broken" + i + j));
+			}
+			environment.add(new PropertySource("source" + i, source));
+		}
+		CipherEnvironmentEncryptor sequential = new CipherEnvironmentEncryptor(locator);
+		CipherEnvironmentEncryptor parallel = new CipherEnvironmentEncryptor(locator);
+		parallel.setDecryptionThreads(4);
+		try {
+			Environment expected = sequential.decrypt(environment);
+			threads.clear();
+			Environment actual = parallel.decrypt(environment);
+
+			assertThat(actual.getPropertySources()).hasSameSizeAs(expected.getPropertySources());
+			for (int i = 0; i < expected.getPropertySources().size(); i++) {
+				assertThat(actual.getPropertySources().get(i).getName())
+					.isEqualTo(expected.getPropertySources().get(i).getName());
+				assertThat(new ArrayList<>(actual.getPropertySources().get(i).getSource().entrySet()))
+					.isEqualTo(new ArrayList<>(expected.getPropertySources().get(i).getSource().entrySet()));
+			}
+			assertThat(actual.getPropertySources().get(0).getSource()).containsEntry("secret0", "secret00")
+				.containsEntry("invalid.broken0", "<n/a>");
+			assertThat(threads).allMatch(name -> name.startsWith("config-server-decrypt-"));
+		}
+		finally {
+			parallel.destroy();
+		}
+	}
+
 }
@@ -61,4 +61,15 @@ public class CipherResourceJsonEncryptorTests {
 		assertThat(decyptedResource.contains("{cipher}")).isFalse();
 	}
 
+	@Test
+	public void whenDecryptResource_thenFieldNamesAreLeftAlone() throws Exception {
+		Environment environment = new Environment("name", "profile", "label");
+		String cipher = "{cipher}" + textEncryptor.encrypt("secret");
+		String text = "{\"" + cipher + "\": \"" + cipher + "\", \"plain\": \"" + cipher + "x\"}";
+
+		String decrypted = encryptor.decrypt(text, environment);
+
+		assertThat(decrypted).isEqualTo("{\"" + cipher + "\": \"secret\", \"plain\": \"" + cipher + "x\"}");
+	}
+
 }
@@ -62,4 +62,23 @@ public class CipherResourcePropertiesEncryptorTests {
 		assertThat(decyptedResource.contains("{cipher}")).isFalse();
 	}
 
+	@Test
+	public void whenDecryptResource_thenOnlyValuesAreReplaced() throws Exception {
+		Environment environment = new Environment("name", "profile", "label");
+		String cipher = "{cipher}" + textEncryptor.encrypt("secret");
+		String text = "# " + cipher + "\r\n" + "password = " + cipher + "\r\n" + "other:" + cipher + "\r\n"
+				+ "multi=" + cipher + "\\\n  more\n" + "plain=value\n";
+
+		String decrypted = encryptor.decrypt(text, environment);
+
+		assertThat(decrypted).isEqualTo("# " + cipher + "\r\n" + "password = secret\r\n" + "other:secret\r\n"
+				+ "multi=" + cipher + "\\\n  more\n" + "plain=value\n");
+	}
+
+	@Test
+	public void whenNoCipherValues_thenResourceIsReturnedAsIs() throws Exception {
+		String text = "foo=bar\n";
+		assertThat(encryptor.decrypt(text, new Environment("name", "profile", "label"))).isSameAs(text);
+	}
+
 }
@@ -61,4 +61,15 @@ public class CipherResourceYamlEncryptorTests {
 		assertThat(decyptedResource.contains("{cipher}")).isFalse();
 	}
 
+	@Test
+	public void whenDecryptResource_thenOnlyValuesAreReplaced() throws Exception {
+		Environment environment = new Environment("name", "profile", "label");
+		String cipher = "{cipher}" + textEncryptor.encrypt("secret");
+		String text = "# " + cipher + "\nconfig:\n  foo: '" + cipher + "'\n  bar: |\n    '" + cipher + "'\n";
+
+		String decrypted = encryptor.decrypt(text, environment);
+
+		assertThat(decrypted).isEqualTo("# " + cipher + "\nconfig:\n  foo: 'secret'\n  bar: |\n    'secret'\n");
+	}
+
 }
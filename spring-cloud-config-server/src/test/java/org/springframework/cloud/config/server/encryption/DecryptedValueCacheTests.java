@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.config.server.encryption;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecryptedValueCacheTests {
+
+	private static final Map<String, String> KEYS = Collections.singletonMap("name", "app");
+
+	private long now = 0;
+
+	private final DecryptedValueCache cache = new DecryptedValueCache(2, Duration.ofMillis(100)) {
+		@Override
+		protected long now() {
+			return DecryptedValueCacheTests.this.now;
+		}
+	};
+
+	@Test
+	public void returnsCachedValue() {
+		this.cache.put("cipher", KEYS, "plain");
+
+		assertThat(this.cache.get("cipher", KEYS)).isEqualTo("plain");
+		assertThat(this.cache.get("cipher", Collections.singletonMap("name", "other"))).isNull();
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+		assertThat(this.cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void expiresEntries() {
+		this.cache.put("cipher", KEYS, "plain");
+		this.now = 99;
+		assertThat(this.cache.get("cipher", KEYS)).isEqualTo("plain");
+
+		this.now = 100;
+		assertThat(this.cache.get("cipher", KEYS)).isNull();
+		assertThat(this.cache.size()).isZero();
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedEntries() {
+		this.cache.put("one", KEYS, "1");
+		this.cache.put("two", KEYS, "2");
+		this.cache.get("one", KEYS);
+		this.cache.put("three", KEYS, "3");
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.get("one", KEYS)).isEqualTo("1");
+		assertThat(this.cache.get("two", KEYS)).isNull();
+		assertThat(this.cache.get("three", KEYS)).isEqualTo("3");
+	}
+
+	@Test
+	public void clearRemovesAllEntries() {
+		this.cache.put("one", KEYS, "1");
+		this.cache.clear();
+
+		assertThat(this.cache.get("one", KEYS)).isNull();
+	}
+
+}
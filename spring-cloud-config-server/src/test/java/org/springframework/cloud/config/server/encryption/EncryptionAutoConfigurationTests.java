@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.util.Collections;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
@@ -25,6 +27,7 @@ import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.cloud.bootstrap.encrypt.TextEncryptorUtils;
 import org.springframework.cloud.config.server.config.DefaultTextEncryptionAutoConfiguration;
 import org.springframework.cloud.config.server.config.RsaEncryptionAutoConfiguration;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.security.crypto.encrypt.Encryptors;
 import org.springframework.security.crypto.encrypt.RsaSecretEncryptor;
@@ -68,6 +71,24 @@ public class EncryptionAutoConfigurationTests {
 		context.close();
 	}
 
+	@Test
+	public void keyStoreIsReloadedOnRefresh() {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(
+				DefaultTextEncryptionAutoConfiguration.class, RsaEncryptionAutoConfiguration.class,
+				ServletWebServerFactoryAutoConfiguration.class, ServerProperties.class,
+				PropertyPlaceholderAutoConfiguration.class)
+			.properties("server.port=0", "encrypt.key-store.location=classpath:server.jks",
+					"encrypt.key-store.password=letmein", "encrypt.key-store.alias=myKey")
+			.run();
+		TextEncryptorLocator textEncryptorLocator = context.getBean(TextEncryptorLocator.class);
+		TextEncryptor before = textEncryptorLocator.locate(Collections.emptyMap());
+		context.publishEvent(new RefreshScopeRefreshedEvent());
+		TextEncryptor after = textEncryptorLocator.locate(Collections.emptyMap());
+		assertThat(after).isNotSameAs(before);
+		assertThat(after.decrypt(before.encrypt("foo"))).isEqualTo("foo");
+		context.close();
+	}
+
 	@Test
 	public void defaultKeyAutoConfigurationTest() {
 		ConfigurableApplicationContext context = new SpringApplicationBuilder(
@@ -16,6 +16,12 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -27,10 +33,12 @@ import org.springframework.security.crypto.encrypt.RsaSecretEncryptor;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -158,4 +166,173 @@ public class EncryptionControllerTests {
 		assertThat(decrypt).as("Wrong decrypted plaintext: " + decrypt).isEqualTo("foo bar");
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void batchRoundTrip() {
+		RsaSecretEncryptor encryptor = new RsaSecretEncryptor();
+		List<Map<String, String>> located = new ArrayList<>();
+		this.controller = new EncryptionController(keys -> {
+			located.add(keys);
+			return encryptor;
+		});
+
+		List<String> ciphers = (List<String>) this.controller.encryptBatch("app", "default",
+				Arrays.asList("foo", "{key:value}bar", "baz", "{key:value}spam"));
+		assertThat(ciphers).hasSize(4);
+		assertThat(ciphers.get(1)).startsWith("{key:value}");
+		assertThat(located).hasSize(2);
+
+		located.clear();
+		Map<String, String> input = new LinkedHashMap<>();
+		for (int i = 0; i < ciphers.size(); i++) {
+			input.put("secret" + i, ciphers.get(i));
+		}
+		Map<String, String> plain = (Map<String, String>) this.controller.decryptBatch("app", "default", input);
+		assertThat(plain).containsExactly(entry("secret0", "foo"), entry("secret1", "bar"), entry("secret2", "baz"),
+				entry("secret3", "spam"));
+		assertThat(located).hasSize(2);
+	}
+
+	@Test
+	public void batchLocatorMayModifyKeys() {
+		RsaSecretEncryptor encryptor = new RsaSecretEncryptor();
+		List<Map<String, String>> located = new ArrayList<>();
+		this.controller = new EncryptionController(keys -> {
+			located.add(keys);
+			keys.remove("key");
+			return encryptor;
+		});
+
+		this.controller.encryptBatch("app", "default", Arrays.asList("{key:value}foo", "{key:value}bar", "baz"));
+
+		assertThat(located).hasSize(2);
+	}
+
+	@Test
+	public void batchWithDefaultApplication() {
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(new RsaSecretEncryptor()));
+		Object ciphers = this.controller.encryptBatch(Collections.singletonList("foo"));
+		assertThat(this.controller.decryptBatch(ciphers)).isEqualTo(Collections.singletonList("foo"));
+	}
+
+	@Test
+	public void batchFailsOnInvalidCipher() {
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(new RsaSecretEncryptor()));
+		String cipher = this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+		assertThatExceptionOfType(InvalidCipherException.class)
+			.isThrownBy(() -> this.controller.decryptBatch(Arrays.asList(cipher, "foo")));
+	}
+
+	@Test
+	public void batchRejectsInvalidData() {
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(new RsaSecretEncryptor()));
+		assertThatExceptionOfType(InvalidBatchException.class)
+			.isThrownBy(() -> this.controller.encryptBatch("foo"));
+		assertThatExceptionOfType(InvalidBatchException.class)
+			.isThrownBy(() -> this.controller.encryptBatch(Collections.singletonList(1)));
+	}
+
+	@Test
+	public void batchWithWeakEncryptor() {
+		assertThatExceptionOfType(EncryptionTooWeakException.class)
+			.isThrownBy(() -> this.controller.encryptBatch(Collections.singletonList("foo")));
+	}
+
+	@Test
+	public void weaknessProbedOncePerEncryptor() {
+		TextEncryptor encryptor = mock(TextEncryptor.class);
+		when(encryptor.encrypt(anyString())).thenAnswer(invocation -> "encrypted-" + invocation.getArgument(0));
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(encryptor));
+
+		this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+		this.controller.encrypt("bar", MediaType.TEXT_PLAIN);
+		this.controller.status();
+
+		verify(encryptor, times(1)).encrypt("FOO");
+	}
+
+	@Test
+	public void weaknessProbedAgainAfterLocatorChange() {
+		TextEncryptor encryptor = mock(TextEncryptor.class);
+		when(encryptor.encrypt(anyString())).thenAnswer(invocation -> "encrypted-" + invocation.getArgument(0));
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(encryptor));
+		this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+
+		this.controller.setEncryptorLocator(new SingleTextEncryptorLocator(encryptor));
+		this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+
+		verify(encryptor, times(2)).encrypt("FOO");
+	}
+
+	@Test
+	public void weaknessProbedAgainAfterChecksAreCleared() {
+		TextEncryptor encryptor = mock(TextEncryptor.class);
+		when(encryptor.encrypt(anyString())).thenAnswer(invocation -> "encrypted-" + invocation.getArgument(0));
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(encryptor));
+		this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+
+		this.controller.clearEncryptorChecks();
+		this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+
+		verify(encryptor, times(2)).encrypt("FOO");
+	}
+
+	@Test
+	public void encryptorsAreCheckedByIdentity() {
+		TextEncryptor weak = new EqualTextEncryptor(false);
+		TextEncryptor strong = new EqualTextEncryptor(true);
+		this.controller = new EncryptionController(keys -> "weak".equals(keys.get("name")) ? weak : strong);
+
+		assertThatExceptionOfType(EncryptionTooWeakException.class)
+			.isThrownBy(() -> this.controller.encrypt("weak", "default", "foo", MediaType.TEXT_PLAIN));
+		assertThat(this.controller.encrypt("strong", "default", "foo", MediaType.TEXT_PLAIN)).isEqualTo("{cipher}foo");
+	}
+
+	@Test
+	public void decryptionNotSupportedIsRemembered() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(1024);
+		RsaSecretEncryptor publicOnly = new RsaSecretEncryptor(generator.generateKeyPair().getPublic());
+		this.controller = new EncryptionController(new SingleTextEncryptorLocator(publicOnly));
+		String cipher = this.controller.encrypt("foo", MediaType.TEXT_PLAIN);
+
+		assertThatExceptionOfType(DecryptionNotSupportedException.class)
+			.isThrownBy(() -> this.controller.decrypt(cipher, MediaType.TEXT_PLAIN));
+		assertThatExceptionOfType(DecryptionNotSupportedException.class)
+			.isThrownBy(() -> this.controller.decrypt(cipher, MediaType.TEXT_PLAIN));
+	}
+
+	/**
+	 * Encryptors that are all equal to each other, whether they encrypt or not.
+	 */
+	private static final class EqualTextEncryptor implements TextEncryptor {
+
+		private final boolean strong;
+
+		private EqualTextEncryptor(boolean strong) {
+			this.strong = strong;
+		}
+
+		@Override
+		public String encrypt(String text) {
+			return this.strong ? "{cipher}" + text : text;
+		}
+
+		@Override
+		public String decrypt(String encryptedText) {
+			return encryptedText;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof EqualTextEncryptor;
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+
+	}
+
 }
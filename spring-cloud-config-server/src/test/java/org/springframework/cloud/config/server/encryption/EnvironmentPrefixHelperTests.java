@@ -17,9 +17,15 @@
 package org.springframework.cloud.config.server.encryption;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import org.springframework.util.StringUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -88,4 +94,74 @@ public class EnvironmentPrefixHelperTests {
 			.isEqualTo("textwith}brac{es{and}prefix");
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = { "", "foo", "}", "{", "{}", "{:}", "{key:}foo", "{key}foo", "{:value}foo",
+			"{key:foo}{secret:bar}foo", " {key:foo} foo", "{key:foo}\n{secret:bar}foo", "foo}{key:bar}baz",
+			"{name:foo}{key:bar}baz", "{key:bar}{name:foo}baz}", "{profiles:dev}{key:bar}baz", "{profiles}foo",
+			"{plain}{key:foo}foo", "{key:foo}{plain}{secret:bar}", "{a}{b:c}rest", "{a\n:b}c", "{a:b\u2028}c}",
+			"{name:a\nb}c", "{key:a:b}c", "{key: spaced value }c" })
+	public void parserMatchesRegularExpressions(String text) {
+		assertEquivalent(text);
+	}
+
+	@Test
+	public void parserMatchesRegularExpressionsForRandomInput() {
+		String[] fragments = { "{", "}", ":", "key", "secret", "name:", "profiles:", "{plain}", "{name:", "{key:",
+				"a", "b", " ", "\n", "\u2028", "\t" };
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(12);
+			for (int j = 0; j < length; j++) {
+				text.append(fragments[random.nextInt(fragments.length)]);
+			}
+			assertEquivalent(text.toString());
+		}
+	}
+
+	private void assertEquivalent(String text) {
+		assertThat(this.helper.stripPrefix(text)).as("stripPrefix(%s)", text).isEqualTo(legacyStripPrefix(text));
+		assertThat(this.helper.getEncryptorKeys("app", "dev", text)).as("getEncryptorKeys(%s)", text)
+			.containsExactlyEntriesOf(legacyGetEncryptorKeys("app", "dev", text));
+	}
+
+	private static Map<String, String> legacyGetEncryptorKeys(String name, String profiles, String text) {
+		Map<String, String> keys = new LinkedHashMap<String, String>();
+		text = text.replaceFirst("\\{name:.*\\}", "").replaceFirst("\\{profiles:.*\\}", "");
+		keys.put("name", name);
+		keys.put("profiles", profiles);
+		if (text.contains("{plain}")) {
+			text = text.substring(0, text.indexOf("{plain}"));
+		}
+		String[] tokens = StringUtils.split(text, "}");
+		while (tokens != null) {
+			String token = tokens[0].trim();
+			if (token.startsWith("{")) {
+				String key = "";
+				String value = "";
+				if (token.contains(":") && !token.endsWith(":")) {
+					key = token.substring(1, token.indexOf(":"));
+					value = token.substring(token.indexOf(":") + 1);
+				}
+				else {
+					key = token.substring(1);
+				}
+				keys.put(key, value);
+			}
+			text = tokens[1];
+			tokens = StringUtils.split(text, "}");
+		}
+		return keys;
+	}
+
+	private static String legacyStripPrefix(String value) {
+		if (!value.contains("}")) {
+			return value;
+		}
+		if (value.contains("{plain}")) {
+			return value.substring(value.indexOf("{plain}") + "{plain}".length());
+		}
+		return value.replaceFirst("^(\\{.*?:.*?\\})+", "");
+	}
+
 }
@@ -16,9 +16,15 @@
 
 package org.springframework.cloud.config.server.encryption;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 
@@ -27,6 +33,12 @@ import org.springframework.security.crypto.encrypt.KeyStoreKeyFactory;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Dave Syer
@@ -75,4 +87,102 @@ public class KeyStoreTextEncryptorLocatorTests {
 		assertThat(encryptor1).isEqualTo(encryptor2);
 	}
 
+	@Test
+	public void testNonDefaultEncryptorIsCached() {
+		KeyStoreKeyFactory keys = spy(
+				new KeyStoreKeyFactory(new ClassPathResource("server.jks"), "letmein".toCharArray()));
+		KeyStoreTextEncryptorLocator locator = new KeyStoreTextEncryptorLocator(keys, "changeme", "mytestkey");
+		locator.setSecretLocator(secret -> "letmein".toCharArray());
+		Map<String, String> map = Collections.singletonMap("key", "mykey");
+
+		TextEncryptor encryptor1 = locator.locate(map);
+		TextEncryptor encryptor2 = locator.locate(map);
+
+		assertThat(encryptor1).isSameAs(encryptor2);
+		verify(keys, times(1)).getKeyPair(eq("mykey"), any(char[].class));
+	}
+
+	@Test
+	public void testDifferentSecretIsNotShared() {
+		this.locator
+			.setSecretLocator(secret -> secret.equals("other") ? "letmein".toCharArray() : secret.toCharArray());
+		Map<String, String> map = new HashMap<String, String>();
+		map.put("key", "mytestkey");
+		map.put("secret", "changeme");
+		TextEncryptor encryptor1 = this.locator.locate(map);
+		map.put("key", "mykey");
+		map.put("secret", "other");
+		TextEncryptor encryptor2 = this.locator.locate(map);
+
+		assertThat(encryptor1).isNotSameAs(encryptor2);
+		assertThat(encryptor2.decrypt(encryptor2.encrypt("foo"))).isEqualTo("foo");
+	}
+
+	@Test
+	public void testInvalidate() {
+		TextEncryptor encryptor1 = this.locator.locate(Collections.<String, String>emptyMap());
+		this.locator.invalidate();
+		TextEncryptor encryptor2 = this.locator.locate(Collections.<String, String>emptyMap());
+
+		assertThat(encryptor1).isNotSameAs(encryptor2);
+		assertThat(encryptor2.decrypt(encryptor1.encrypt("foo"))).isEqualTo("foo");
+	}
+
+	@Test
+	public void testEncryptorBuiltDuringInvalidateIsNotCached() {
+		KeyStoreKeyFactory keys = spy(
+				new KeyStoreKeyFactory(new ClassPathResource("server.jks"), "letmein".toCharArray()));
+		KeyStoreTextEncryptorLocator locator = new KeyStoreTextEncryptorLocator(keys, "changeme", "mytestkey");
+		locator.setSecretLocator(secret -> "letmein".toCharArray());
+		AtomicBoolean invalidated = new AtomicBoolean();
+		doAnswer(invocation -> {
+			// the keystore is reloaded while the encryptor is being built
+			if (invalidated.compareAndSet(false, true)) {
+				locator.invalidate();
+			}
+			return invocation.callRealMethod();
+		}).when(keys).getKeyPair(eq("mykey"), any(char[].class));
+		Map<String, String> map = Collections.singletonMap("key", "mykey");
+
+		locator.locate(map);
+		locator.locate(map);
+		locator.locate(map);
+
+		verify(keys, times(2)).getKeyPair(eq("mykey"), any(char[].class));
+	}
+
+	@Test
+	public void testKeyStoreReloadInvalidatesCache() {
+		this.locator.setSecretLocator(secret -> "letmein".toCharArray());
+		Map<String, String> map = Collections.singletonMap("key", "mykey");
+		TextEncryptor encryptor1 = this.locator.locate(map);
+		this.locator.setKeyStoreKeyFactory(
+				new KeyStoreKeyFactory(new ClassPathResource("server.jks"), "letmein".toCharArray()));
+		TextEncryptor encryptor2 = this.locator.locate(map);
+
+		assertThat(encryptor1).isNotSameAs(encryptor2);
+	}
+
+	@Test
+	public void testDefaultEncryptorIsCreatedOnce() throws Exception {
+		KeyStoreKeyFactory keys = spy(
+				new KeyStoreKeyFactory(new ClassPathResource("server.jks"), "letmein".toCharArray()));
+		KeyStoreTextEncryptorLocator locator = new KeyStoreTextEncryptorLocator(keys, "changeme", "mytestkey");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<TextEncryptor>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> locator.locate(Collections.<String, String>emptyMap())));
+			}
+			TextEncryptor first = futures.get(0).get();
+			for (Future<TextEncryptor> future : futures) {
+				assertThat(future.get()).isSameAs(first);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(keys, times(1)).getKeyPair(eq("mytestkey"), any(char[].class));
+	}
+
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class CachingEnvironmentRepositoryTests {
+
+	private final EnvironmentCache.Default cache = new EnvironmentCache.Default(10, Duration.ofMinutes(5));
+
+	@AfterEach
+	public void resetRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void cachedEnvironmentIsServedWhileVersionIsUnchanged() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class,
+				withSettings().extraInterfaces(SearchPathLocator.class));
+		when(((SearchPathLocator) delegate).getLocations("foo", "bar", "main")).thenReturn(locations("v1"));
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		Environment environment = repository.findOne("foo", "bar", "main", false);
+
+		assertThat(environment.getVersion()).isEqualTo("v1");
+		verify(delegate, times(1)).findOne("foo", "bar", "main", false);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+		assertThat(this.cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void cachedEnvironmentIsEvictedWhenVersionChanges() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class,
+				withSettings().extraInterfaces(SearchPathLocator.class));
+		when(((SearchPathLocator) delegate).getLocations("foo", "bar", "main")).thenReturn(locations("v1"),
+				locations("v2"));
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"), environment("v2"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		Environment environment = repository.findOne("foo", "bar", "main", false);
+
+		assertThat(environment.getVersion()).isEqualTo("v2");
+		verify(delegate, times(2)).findOne("foo", "bar", "main", false);
+		assertThat(this.cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void cachedEnvironmentIsEvictedWhenVersionOfCompositeChanges() {
+		EnvironmentRepository git = mock(EnvironmentRepository.class,
+				withSettings().extraInterfaces(SearchPathLocator.class));
+		when(((SearchPathLocator) git).getLocations("foo", "bar", "main")).thenReturn(locations("v1"),
+				locations("v2"));
+		when(git.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"), environment("v2"));
+		List<EnvironmentRepository> repositories = new ArrayList<>();
+		repositories.add(git);
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(
+				new SearchPathCompositeEnvironmentRepository(repositories, ObservationRegistry.NOOP, true),
+				this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		Environment environment = repository.findOne("foo", "bar", "main", false);
+
+		assertThat(environment.getVersion()).isEqualTo("v2");
+		verify(git, times(2)).findOne("foo", "bar", "main", false);
+	}
+
+	@Test
+	public void versionOfGuardedCompositeIsNotResolved() {
+		EnvironmentRepository git = mock(EnvironmentRepository.class,
+				withSettings().extraInterfaces(SearchPathLocator.class));
+		when(git.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"));
+		List<EnvironmentRepository> repositories = new ArrayList<>();
+		repositories.add(git);
+		SearchPathCompositeEnvironmentRepository composite = new SearchPathCompositeEnvironmentRepository(
+				repositories, ObservationRegistry.NOOP, true);
+		composite.setTimeout(Duration.ofSeconds(5));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(composite, this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		repository.findOne("foo", "bar", "main", false);
+
+		verify((SearchPathLocator) git, never()).getLocations("foo", "bar", "main");
+		verify(git, times(1)).findOne("foo", "bar", "main", false);
+	}
+
+	@Test
+	public void staleEnvironmentIsNotCached() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		Environment stale = environment("v1");
+		stale.setState(CircuitBreakerEnvironmentRepository.STALE_STATE);
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(stale, environment("v2"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		Environment environment = repository.findOne("foo", "bar", "main", false);
+
+		assertThat(environment.getVersion()).isEqualTo("v2");
+		verify(delegate, times(2)).findOne("foo", "bar", "main", false);
+	}
+
+	@Test
+	public void environmentsAreCachedPerRequestCredentials() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		withToken("token-a");
+		repository.findOne("foo", "bar", "main", false);
+		repository.findOne("foo", "bar", "main", false);
+		withToken("token-b");
+		repository.findOne("foo", "bar", "main", false);
+		RequestContextHolder.resetRequestAttributes();
+		repository.findOne("foo", "bar", "main", false);
+
+		verify(delegate, times(3)).findOne("foo", "bar", "main", false);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void includeOriginIsPartOfTheKey() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"));
+		when(delegate.findOne("foo", "bar", "main", true)).thenReturn(environment("v1"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		repository.findOne("foo", "bar", "main", false);
+		repository.findOne("foo", "bar", "main", true);
+
+		verify(delegate, times(1)).findOne("foo", "bar", "main", false);
+		verify(delegate, times(1)).findOne("foo", "bar", "main", true);
+		assertThat(this.cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void callersCannotModifyCachedEnvironment() {
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment("v1"));
+		CachingEnvironmentRepository repository = new CachingEnvironmentRepository(delegate, this.cache);
+
+		repository.findOne("foo", "bar", "main", false)
+			.addFirst(new PropertySource("overrides", Collections.singletonMap("a", "b")));
+
+		assertThat(repository.findOne("foo", "bar", "main", false).getPropertySources()).hasSize(1);
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsEvictedWhenFull() {
+		EnvironmentCache.Default cache = new EnvironmentCache.Default(1, Duration.ofMinutes(5));
+		cache.put(new EnvironmentCache.Key("foo", "bar", "main", false), null, environment("v1"));
+		cache.put(new EnvironmentCache.Key("spam", "bar", "main", false), null, environment("v1"));
+
+		assertThat(cache.get(new EnvironmentCache.Key("foo", "bar", "main", false), null)).isNull();
+		assertThat(cache.get(new EnvironmentCache.Key("spam", "bar", "main", false), null)).isNotNull();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void expiredEntryIsNotServed() {
+		EnvironmentCache.Default cache = new EnvironmentCache.Default(10, Duration.ZERO);
+		cache.put(new EnvironmentCache.Key("foo", "bar", "main", false), null, environment("v1"));
+
+		assertThat(cache.get(new EnvironmentCache.Key("foo", "bar", "main", false), null)).isNull();
+	}
+
+	private static void withToken(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(ConfigClientProperties.TOKEN_HEADER, token);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private static SearchPathLocator.Locations locations(String version) {
+		return new SearchPathLocator.Locations("foo", "bar", "main", version, new String[0]);
+	}
+
+	private static Environment environment(String version) {
+		Environment environment = new Environment("foo", new String[] { "bar" }, "main", version, null);
+		environment.add(new PropertySource("one", Collections.singletonMap("a", "b")));
+		return environment;
+	}
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CircuitBreakerEnvironmentRepositoryTests {
+
+	private final EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+
+	private Environment environment;
+
+	@BeforeEach
+	public void init() {
+		this.environment = new Environment("app", new String[] { "dev" }, "main", "v1", null);
+		this.environment.add(new PropertySource("p1", Map.of("foo", "bar")));
+	}
+
+	@AfterEach
+	public void clean() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void opensAfterFailureThresholdAndServesStaleEnvironment() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenReturn(this.environment)
+			.thenThrow(new RepositoryException("down"));
+		CircuitBreakerEnvironmentRepository repository = repository(2);
+
+		assertThat(repository.findOne("app", "dev", "main", false)).isSameAs(this.environment);
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false));
+		assertThat(repository.isOpen()).isFalse();
+
+		Environment stale = repository.findOne("app", "dev", "main", false);
+		assertThat(repository.isOpen()).isTrue();
+		assertThat(stale.getState()).isEqualTo(CircuitBreakerEnvironmentRepository.STALE_STATE);
+		assertThat(stale.getVersion()).isEqualTo("v1");
+		assertThat(stale.getPropertySources()).extracting(PropertySource::getName).containsExactly("p1");
+		assertThat(this.environment.getState()).isNull();
+
+		repository.findOne("app", "dev", "main", false);
+		verify(this.delegate, times(3)).findOne("app", "dev", "main", false);
+		assertThat(repository.getStaleCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void rejectsRequestsWithoutLastKnownGoodEnvironment() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenThrow(new IllegalStateException("down"));
+		CircuitBreakerEnvironmentRepository repository = repository(1);
+
+		assertThatExceptionOfType(IllegalStateException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false));
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false))
+			.withMessageContaining("is open");
+		verify(this.delegate, times(1)).findOne("app", "dev", "main", false);
+		assertThat(repository.getRejectedCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void trialRequestClosesCircuitWhenRepositoryRecovers() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenThrow(new RepositoryException("down"))
+			.thenThrow(new RepositoryException("still down"))
+			.thenReturn(this.environment);
+		CircuitBreakerEnvironmentRepository repository = repository(1, Duration.ZERO);
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false));
+		assertThat(repository.isOpen()).isTrue();
+
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false))
+			.withMessage("still down");
+		assertThat(repository.isOpen()).isTrue();
+
+		assertThat(repository.findOne("app", "dev", "main", false)).isSameAs(this.environment);
+		assertThat(repository.isOpen()).isFalse();
+		verify(this.delegate, times(3)).findOne("app", "dev", "main", false);
+	}
+
+	@Test
+	public void trialRequestsAreMadeWithTheirCredentials() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenAnswer(invocation -> {
+			ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
+				.currentRequestAttributes();
+			if (attributes.getRequest().getHeader(ConfigClientProperties.TOKEN_HEADER) == null) {
+				throw new RepositoryException("no token");
+			}
+			return this.environment;
+		});
+		CircuitBreakerEnvironmentRepository repository = repository(1, Duration.ZERO);
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false));
+		assertThat(repository.isOpen()).isTrue();
+
+		withToken("token");
+		assertThat(repository.findOne("app", "dev", "main", false)).isSameAs(this.environment);
+		assertThat(repository.isOpen()).isFalse();
+	}
+
+	@Test
+	public void staleEnvironmentsAreNotServedAcrossCredentials() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenReturn(this.environment)
+			.thenThrow(new RepositoryException("down"));
+		CircuitBreakerEnvironmentRepository repository = repository(1);
+
+		withToken("token1");
+		assertThat(repository.findOne("app", "dev", "main", false)).isSameAs(this.environment);
+		assertThat(repository.findOne("app", "dev", "main", false).getState())
+			.isEqualTo(CircuitBreakerEnvironmentRepository.STALE_STATE);
+
+		withToken("token2");
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false))
+			.withMessageContaining("is open");
+		RequestContextHolder.resetRequestAttributes();
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> repository.findOne("app", "dev", "main", false))
+			.withMessageContaining("is open");
+		assertThat(repository.getRejectedCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void clientErrorsDoNotOpenCircuit() {
+		when(this.delegate.findOne("app", "dev", "missing", false)).thenThrow(new NoSuchLabelException("missing"));
+		CircuitBreakerEnvironmentRepository repository = repository(1);
+
+		for (int i = 0; i < 3; i++) {
+			assertThatExceptionOfType(NoSuchLabelException.class)
+				.isThrownBy(() -> repository.findOne("app", "dev", "missing", false));
+		}
+		assertThat(repository.isOpen()).isFalse();
+		verify(this.delegate, times(3)).findOne("app", "dev", "missing", false);
+	}
+
+	@Test
+	public void slowCallsOpenCircuit() {
+		when(this.delegate.findOne("app", "dev", "main", false)).thenAnswer(invocation -> {
+			Thread.sleep(50);
+			return this.environment;
+		});
+		CircuitBreakerEnvironmentRepository repository = repository(1);
+		repository.setSlowCallDuration(Duration.ofMillis(1));
+
+		assertThat(repository.findOne("app", "dev", "main", false)).isSameAs(this.environment);
+		assertThat(repository.isOpen()).isTrue();
+		assertThat(repository.findOne("app", "dev", "main", false).getState())
+			.isEqualTo(CircuitBreakerEnvironmentRepository.STALE_STATE);
+	}
+
+	private CircuitBreakerEnvironmentRepository repository(int failureThreshold) {
+		return repository(failureThreshold, Duration.ofMinutes(1));
+	}
+
+	private CircuitBreakerEnvironmentRepository repository(int failureThreshold, Duration probeInterval) {
+		return new CircuitBreakerEnvironmentRepository("test", this.delegate, failureThreshold, probeInterval, 10);
+	}
+
+	private static void withToken(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(ConfigClientProperties.TOKEN_HEADER, token);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CoalescingEnvironmentRepositoryTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	public void close() {
+		this.release.countDown();
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentIdenticalRequestsShareOneCall() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofSeconds(10));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenAnswer(invocation -> {
+			this.release.await();
+			return environment();
+		});
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		List<Future<Environment>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(this.executor.submit(() -> repository.findOne("foo", "bar", "main", false)));
+		}
+		waitUntil(() -> coalescer.getCoalescedCount() == 3);
+		this.release.countDown();
+
+		for (Future<Environment> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS).getPropertySources()).hasSize(1);
+		}
+		verify(delegate, times(1)).findOne("foo", "bar", "main", false);
+		assertThat(coalescer.getExecutionCount()).isEqualTo(1);
+		assertThat(coalescer.getInFlightCount()).isZero();
+	}
+
+	@Test
+	public void differentRequestsAreNotCoalesced() {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofSeconds(10));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(environment());
+		when(delegate.findOne("foo", "bar", "main", true)).thenReturn(environment());
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		repository.findOne("foo", "bar", "main", false);
+		repository.findOne("foo", "bar", "main", true);
+		repository.findOne("foo", "bar", "main", false);
+
+		verify(delegate, times(2)).findOne("foo", "bar", "main", false);
+		assertThat(coalescer.getCoalescedCount()).isZero();
+	}
+
+	@Test
+	public void requestsWithDifferentCredentialsAreNotCoalesced() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofSeconds(10));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenAnswer(invocation -> {
+			this.release.await();
+			return environment();
+		});
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		List<Future<Environment>> results = new ArrayList<>();
+		for (String token : new String[] { "token-a", "token-b", null }) {
+			results.add(this.executor.submit(() -> {
+				MockHttpServletRequest request = new MockHttpServletRequest();
+				if (token != null) {
+					request.addHeader(ConfigClientProperties.TOKEN_HEADER, token);
+				}
+				RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+				try {
+					return repository.findOne("foo", "bar", "main", false);
+				}
+				finally {
+					RequestContextHolder.resetRequestAttributes();
+				}
+			}));
+		}
+		waitUntil(() -> coalescer.getInFlightCount() == 3);
+		this.release.countDown();
+
+		for (Future<Environment> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS).getPropertySources()).hasSize(1);
+		}
+		verify(delegate, times(3)).findOne("foo", "bar", "main", false);
+		assertThat(coalescer.getCoalescedCount()).isZero();
+	}
+
+	@Test
+	public void waitingRequestsGetTheException() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofSeconds(10));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenAnswer(invocation -> {
+			this.release.await();
+			throw new NoSuchLabelException("No such label: main");
+		});
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		Future<Environment> first = this.executor.submit(() -> repository.findOne("foo", "bar", "main", false));
+		waitUntil(() -> coalescer.getInFlightCount() == 1);
+		Future<Environment> second = this.executor.submit(() -> repository.findOne("foo", "bar", "main", false));
+		waitUntil(() -> coalescer.getCoalescedCount() == 1);
+		this.release.countDown();
+
+		assertThatExceptionOfType(Exception.class).isThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+			.withCauseInstanceOf(NoSuchLabelException.class);
+		assertThatExceptionOfType(Exception.class).isThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+			.withCauseInstanceOf(NoSuchLabelException.class);
+		verify(delegate, times(1)).findOne("foo", "bar", "main", false);
+	}
+
+	@Test
+	public void waitingRequestRunsItselfAfterMaxWait() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofMillis(50));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		when(delegate.findOne("foo", "bar", "main", false)).thenAnswer(invocation -> {
+			this.release.await();
+			return environment();
+		}).thenReturn(environment());
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		Future<Environment> first = this.executor.submit(() -> repository.findOne("foo", "bar", "main", false));
+		waitUntil(() -> coalescer.getInFlightCount() == 1);
+		Environment second = repository.findOne("foo", "bar", "main", false);
+		this.release.countDown();
+
+		assertThat(second.getPropertySources()).hasSize(1);
+		assertThat(first.get(5, TimeUnit.SECONDS).getPropertySources()).hasSize(1);
+		assertThat(coalescer.getTimeoutCount()).isEqualTo(1);
+		verify(delegate, times(2)).findOne("foo", "bar", "main", false);
+	}
+
+	@Test
+	public void callersCannotModifySharedEnvironment() {
+		RequestCoalescer coalescer = new RequestCoalescer(Duration.ofSeconds(10));
+		EnvironmentRepository delegate = mock(EnvironmentRepository.class);
+		Environment shared = environment();
+		when(delegate.findOne("foo", "bar", "main", false)).thenReturn(shared);
+		CoalescingEnvironmentRepository repository = new CoalescingEnvironmentRepository(delegate, coalescer);
+
+		repository.findOne("foo", "bar", "main", false)
+			.addFirst(new PropertySource("overrides", Collections.singletonMap("a", "b")));
+
+		assertThat(shared.getPropertySources()).hasSize(1);
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("waiting for condition").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static Environment environment() {
+		Environment environment = new Environment("foo", new String[] { "bar" }, "main", "v1", null);
+		environment.add(new PropertySource("one", Collections.singletonMap("a", "b")));
+		return environment;
+	}
+
+}
@@ -16,13 +16,22 @@
 
 package org.springframework.cloud.config.server.environment;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.cloud.config.client.ConfigClientProperties;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.cloud.config.server.config.CompositeConfiguration;
@@ -32,11 +41,15 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.Ordered;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOfType;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Ryan Baxter
@@ -207,6 +220,284 @@ public class CompositeEnvironmentRepositoryTests {
 			.isThrownBy(() -> compositeRepo.getLocations("app", "dev", "label"));
 	}
 
+	@Test
+	public void getLocationsJoinsVersionsOfAllRepositories() {
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(2, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "v2", new String[] { "loc1" })));
+		repos.add(new TestOrderedEnvironmentRepository(1, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "v1", new String[] { "loc2" })));
+
+		SearchPathCompositeEnvironmentRepository compositeRepo = new SearchPathCompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		assertThat(compositeRepo.getLocations("app", "dev", "label").getVersion()).isEqualTo("v1,v2");
+
+		repos.add(new TestOrderedEnvironmentRepository(3, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", null, new String[] { "loc3" })));
+		compositeRepo = new SearchPathCompositeEnvironmentRepository(repos, ObservationRegistry.NOOP, false);
+		assertThat(compositeRepo.getLocations("app", "dev", "label").getVersion()).isNull();
+	}
+
+	@Test
+	public void withLocationsCombinesLocationsOfAllRepositories() {
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(2, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "version", new String[] { "loc1" })));
+		repos.add(new TestOrderedEnvironmentRepository(1, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "version", new String[] { "loc2", "loc3" })));
+		repos.add(new TestFailingLocationRepository(3, new Environment("app", "dev"), null));
+
+		SearchPathCompositeEnvironmentRepository compositeRepo = new SearchPathCompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		String[] locations = compositeRepo.withLocations("app", "dev", "label",
+				SearchPathLocator.Locations::getLocations);
+		assertThat(locations).containsExactly("loc2", "loc3", "loc1");
+		assertThat(locations).containsExactly(compositeRepo.getLocations("app", "dev", "label").getLocations());
+	}
+
+	@Test
+	public void withLocationsJoinsVersionsOfAllRepositories() {
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(2, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "v2", new String[] { "loc1" })));
+		repos.add(new TestOrderedEnvironmentRepository(1, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "v1", new String[] { "loc2" })));
+
+		SearchPathCompositeEnvironmentRepository compositeRepo = new SearchPathCompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		assertThat(compositeRepo.withLocations("app", "dev", "label", SearchPathLocator.Locations::getVersion))
+			.isEqualTo("v1,v2");
+
+		repos.add(new TestFailingLocationRepository(3, new Environment("app", "dev"), null));
+		compositeRepo = new SearchPathCompositeEnvironmentRepository(repos, ObservationRegistry.NOOP, false);
+		assertThat(compositeRepo.withLocations("app", "dev", "label", SearchPathLocator.Locations::getVersion))
+			.isNull();
+	}
+
+	@Test
+	public void withLocationsRethrowsErrorsOfCallback() {
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, new Environment("app", "dev"),
+				new SearchPathLocator.Locations("app", "dev", "label", "version", new String[] { "loc1" })));
+
+		SearchPathCompositeEnvironmentRepository compositeRepo = new SearchPathCompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		assertThatExceptionOfType(RepositoryException.class)
+			.isThrownBy(() -> compositeRepo.withLocations("app", "dev", "label", locations -> {
+				throw new RepositoryException("Failing for some reason");
+			}));
+	}
+
+	@Test
+	public void parallelQueriesKeepOrderOfRepositories() throws Exception {
+		CountDownLatch started = new CountDownLatch(3);
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestBlockingEnvironmentRepository(3, environment("p3"), started));
+		repos.add(new TestBlockingEnvironmentRepository(1, environment("p1"), started));
+		repos.add(new TestBlockingEnvironmentRepository(2, environment("p2"), started));
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, true);
+		compositeRepo.setThreads(3);
+		try {
+			// each repository waits until all of them have been called
+			Environment env = compositeRepo.findOne("app", "dev", "label", false);
+			assertThat(env.getPropertySources()).extracting(PropertySource::getName)
+				.containsExactly("p1", "p2", "p3");
+		}
+		finally {
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void parallelQueriesSkipRepositoriesThatTimeOut() {
+		// never released while the composite waits
+		CountDownLatch blocked = new CountDownLatch(2);
+		EnvironmentRepository slow = new TestBlockingEnvironmentRepository(2, environment("p2"), blocked);
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(slow);
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		compositeRepo.setThreads(2);
+		compositeRepo.setTimeout(Duration.ofSeconds(30));
+		compositeRepo.setTimeout(slow, Duration.ofMillis(100));
+		try {
+			Environment env = compositeRepo.findOne("app", "dev", "label", false);
+			assertThat(env.getPropertySources()).extracting(PropertySource::getName).containsExactly("p1");
+		}
+		finally {
+			blocked.countDown();
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void parallelQueriesFailOnTimeout() {
+		// never released while the composite waits
+		CountDownLatch blocked = new CountDownLatch(2);
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(new TestBlockingEnvironmentRepository(2, environment("p2"), blocked));
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, true);
+		compositeRepo.setThreads(2);
+		compositeRepo.setTimeout(Duration.ofMillis(100));
+		try {
+			assertThatExceptionOfType(RepositoryException.class)
+				.isThrownBy(() -> compositeRepo.findOne("app", "dev", "label", false))
+				.withMessageContaining("Timed out");
+		}
+		finally {
+			blocked.countDown();
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void parallelQueriesAreInterruptedOnTimeout() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(new TestOrderedEnvironmentRepository(2, environment("p2"), null) {
+			@Override
+			public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+				try {
+					Thread.sleep(30000);
+				}
+				catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return super.findOne(application, profile, label, includeOrigin);
+			}
+		});
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, false);
+		compositeRepo.setThreads(2);
+		compositeRepo.setTimeout(Duration.ofMillis(100));
+		try {
+			compositeRepo.findOne("app", "dev", "label", false);
+			assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		finally {
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void parallelQueriesSeeSnapshotOfRequest() {
+		AtomicReference<HttpServletRequest> seen = new AtomicReference<>();
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(new TestOrderedEnvironmentRepository(2, environment("p2"), null) {
+			@Override
+			public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+				ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder
+					.currentRequestAttributes();
+				seen.set(attributes.getRequest());
+				return super.findOne(application, profile, label, includeOrigin);
+			}
+		});
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, true);
+		compositeRepo.setThreads(2);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/dev/label");
+		request.addHeader(ConfigClientProperties.TOKEN_HEADER, "token");
+		request.addHeader("Host", "localhost");
+		request.addParameter("useDefaultLabel", "true");
+		request.setCookies(new Cookie("session", "id"));
+		request.setRemoteAddr("10.0.0.1");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			compositeRepo.findOne("app", "dev", "label", false);
+		}
+		finally {
+			RequestContextHolder.resetRequestAttributes();
+			compositeRepo.destroy();
+		}
+		HttpServletRequest detached = seen.get();
+		assertThat(detached).isNotSameAs(request);
+		// the request is recycled once it completes, the snapshot is not
+		request.removeHeader("Host");
+		request.setRemoteAddr(null);
+		assertThat(detached.getHeader(ConfigClientProperties.TOKEN_HEADER)).isEqualTo("token");
+		assertThat(detached.getHeader("host")).isEqualTo("localhost");
+		assertThat(detached.getParameter("useDefaultLabel")).isEqualTo("true");
+		assertThat(detached.getCookies()).extracting(Cookie::getValue).containsExactly("id");
+		assertThat(detached.getRemoteAddr()).isEqualTo("10.0.0.1");
+		assertThat(detached.getRequestURI()).isEqualTo("/app/dev/label");
+		assertThat(detached.getSession(false)).isNull();
+		assertThat(detached.getContentLength()).isEqualTo(-1);
+	}
+
+	@Test
+	public void parallelQueriesRethrowErrors() {
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(new TestFailingEnvironmentRepository(2, environment("p2"), null));
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, true);
+		compositeRepo.setThreads(2);
+		try {
+			assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> compositeRepo.findOne("app", "dev", "label", false));
+		}
+		finally {
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void circuitBreakersServeStaleEnvironments() {
+		EnvironmentRepository failing = mock(EnvironmentRepository.class);
+		when(failing.findOne("app", "dev", "label", false)).thenReturn(environment("p2"))
+			.thenThrow(new RepositoryException("down"));
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(new TestOrderedEnvironmentRepository(1, environment("p1"), null));
+		repos.add(failing);
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				ObservationRegistry.NOOP, true);
+		compositeRepo.enableCircuitBreakers(1, Duration.ofMinutes(1), 10,
+				repo -> (repo == failing) ? "failing" : null);
+		try {
+			assertThat(compositeRepo.findOne("app", "dev", "label", false).getState()).isNull();
+			Environment env = compositeRepo.findOne("app", "dev", "label", false);
+			assertThat(env.getState()).isEqualTo(CircuitBreakerEnvironmentRepository.STALE_STATE);
+			assertThat(env.getPropertySources()).extracting(PropertySource::getName).containsExactly("p1", "p2");
+			assertThat(compositeRepo.getCircuitBreakers()).extracting(CircuitBreakerEnvironmentRepository::getName)
+				.containsExactly("CompositeEnvironmentRepositoryTests.TestOrderedEnvironmentRepository", "failing");
+			assertThat(compositeRepo.getCircuitBreakers().get(1).isOpen()).isTrue();
+		}
+		finally {
+			compositeRepo.destroy();
+		}
+	}
+
+	@Test
+	public void circuitBreakersAreNamedAfterObservedRepositories() {
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(context -> true);
+		EnvironmentRepository first = new TestOrderedEnvironmentRepository(1, environment("p1"), null);
+		EnvironmentRepository second = new TestOrderedEnvironmentRepository(2, environment("p2"), null);
+		List<EnvironmentRepository> repos = new ArrayList<EnvironmentRepository>();
+		repos.add(first);
+		repos.add(second);
+		CompositeEnvironmentRepository compositeRepo = new CompositeEnvironmentRepository(repos,
+				observationRegistry, true);
+		Map<EnvironmentRepository, String> names = new IdentityHashMap<>();
+		names.put(first, "first");
+		names.put(second, "second");
+		compositeRepo.enableCircuitBreakers(1, Duration.ofMinutes(1), 10, names::get);
+		assertThat(compositeRepo.getCircuitBreakers()).extracting(CircuitBreakerEnvironmentRepository::getName)
+			.containsExactly("first", "second");
+	}
+
+	private static Environment environment(String propertySource) {
+		Environment env = new Environment("app", "dev");
+		env.add(new PropertySource(propertySource, Map.of("name", propertySource)));
+		return env;
+	}
+
 	private static class TestOrderedEnvironmentRepository implements EnvironmentRepository, SearchPathLocator, Ordered {
 
 		private Environment env;
@@ -274,6 +565,32 @@ public class CompositeEnvironmentRepositoryTests {
 
 	}
 
+	private static class TestBlockingEnvironmentRepository extends TestOrderedEnvironmentRepository {
+
+		private final CountDownLatch latch;
+
+		TestBlockingEnvironmentRepository(int order, Environment env, CountDownLatch latch) {
+			super(order, env, null);
+			this.latch = latch;
+		}
+
+		@Override
+		public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+			this.latch.countDown();
+			try {
+				if (!this.latch.await(10, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("Repositories were not called at the same time");
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			return super.findOne(application, profile, label, includeOrigin);
+		}
+
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class OverrideCompositeConfig {
 
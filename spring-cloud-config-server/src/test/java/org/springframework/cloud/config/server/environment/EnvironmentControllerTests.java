@@ -17,6 +17,7 @@
 package org.springframework.cloud.config.server.environment;
 
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -34,6 +35,7 @@ import org.yaml.snakeyaml.Yaml;
 
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -504,6 +506,55 @@ class EnvironmentControllerTests {
 		assertThat(json).isEqualTo("{\"a\":{\"b\":{\"c\":\"spam\"}}}");
 	}
 
+	@Test
+	public void placeholderResolvedInYamlIsTypedByItsValue() throws Exception {
+		this.environment.add(new PropertySource("one", Collections.singletonMap("port", "8080")));
+		this.environment.addFirst(new PropertySource("two", Collections.singletonMap("a.b.c", "${port}")));
+		when(this.repository.findOne("foo", "bar", null, false)).thenReturn(this.environment);
+		String yaml = this.controller.yaml("foo", "bar", true).getBody();
+		assertThat(yaml).isEqualTo("port: '8080'\na:\n  b:\n    c: 8080\n");
+	}
+
+	@Test
+	public void placeholderResolvedInJsonIsEscaped() throws Exception {
+		this.environment.add(new PropertySource("one", Collections.singletonMap("greeting", "say \"hi\"")));
+		this.environment.addFirst(new PropertySource("two", Collections.singletonMap("a.b.c", "${greeting}")));
+		when(this.repository.findOne("foo", "bar", null, false)).thenReturn(this.environment);
+		String json = this.controller.jsonProperties("foo", "bar", true).getBody();
+		JSONAssert.assertEquals("{\"a\":{\"b\":{\"c\":\"say \\\"hi\\\"\"}},\"greeting\":\"say \\\"hi\\\"\"}",
+				json, JSONCompareMode.STRICT);
+	}
+
+	@Test
+	public void escapedPlaceholderNotResolvedInProperties() throws Exception {
+		whenPlaceholders();
+		this.environment.addFirst(new PropertySource("three", Collections.singletonMap("d", "\\${foo}")));
+		String text = this.controller.properties("foo", "bar", true).getBody();
+		Properties properties = new Properties();
+		properties.load(new StringReader(text));
+		assertThat(properties).containsOnly(entry("a.b.c", "bar"), entry("d", "${foo}"), entry("foo", "bar"));
+	}
+
+	@Test
+	public void placeholdersResolvedInKeysOfProperties() throws Exception {
+		whenPlaceholders();
+		this.environment.addFirst(new PropertySource("three", Collections.singletonMap("d.${foo}", "${foo}")));
+		String text = this.controller.properties("foo", "bar", true).getBody();
+		Properties properties = new Properties();
+		properties.load(new StringReader(text));
+		assertThat(properties).containsOnly(entry("d.bar", "bar"), entry("a.b.c", "bar"), entry("foo", "bar"));
+	}
+
+	@Test
+	public void placeholdersResolvedInKeysOfYaml() throws Exception {
+		whenPlaceholders();
+		this.environment.addFirst(new PropertySource("three", Collections.singletonMap("d.${foo}", "spam")));
+		String yaml = this.controller.yaml("foo", "bar", true).getBody();
+		Map<String, Object> map = new Yaml().load(yaml);
+		assertThat(map).containsOnlyKeys("a", "d", "foo");
+		assertThat(map).containsEntry("d", Collections.singletonMap("bar", "spam"));
+	}
+
 	private void whenPlaceholders() {
 		Map<String, Object> map = new LinkedHashMap<String, Object>();
 		map.put("foo", "bar");
@@ -586,10 +637,38 @@ class EnvironmentControllerTests {
 			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
 				.thenReturn(EnvironmentControllerTests.this.environment);
 			this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.yml"))
-				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN))
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"))
 				.andExpect(MockMvcResultMatchers.content().string("{}\n"));
 		}
 
+		@Test
+		public void mappingForPropertiesWritesResolvedValues() throws Exception {
+			EnvironmentControllerTests.this.environment
+				.add(new PropertySource("one", Collections.singletonMap("foo", "bar")));
+			EnvironmentControllerTests.this.environment
+				.addFirst(new PropertySource("two", Collections.singletonMap("a.b.c", "${foo}")));
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.properties"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"))
+				.andExpect(MockMvcResultMatchers.content().string("foo: bar\na.b.c: bar"));
+		}
+
+		@Test
+		public void mappingForYamlWritesNonAsciiValuesAsUtf8() throws Exception {
+			EnvironmentControllerTests.this.environment
+				.add(new PropertySource("one", Collections.singletonMap("greeting", "h\u00e9llo")));
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			byte[] body = this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.yml"))
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"))
+				.andReturn()
+				.getResponse()
+				.getContentAsByteArray();
+			assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo("greeting: h\u00e9llo\n");
+		}
+
 		@Test
 		public void mappingForJson() throws Exception {
 			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
@@ -604,7 +683,7 @@ class EnvironmentControllerTests {
 			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", "other", false))
 				.thenReturn(EnvironmentControllerTests.this.environment);
 			this.mvc.perform(MockMvcRequestBuilders.get("/other/foo-bar.yml"))
-				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN));
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"));
 		}
 
 		@Test
@@ -612,7 +691,7 @@ class EnvironmentControllerTests {
 			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", "other", false))
 				.thenReturn(EnvironmentControllerTests.this.environment);
 			this.mvc.perform(MockMvcRequestBuilders.get("/other/foo-bar.properties"))
-				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN));
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"));
 		}
 
 		@Test
@@ -620,7 +699,7 @@ class EnvironmentControllerTests {
 			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
 				.thenReturn(EnvironmentControllerTests.this.environment);
 			this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.properties"))
-				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN));
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"));
 		}
 
 		@Test
@@ -628,7 +707,7 @@ class EnvironmentControllerTests {
 			when(EnvironmentControllerTests.this.repository.findOne("foo-bar-foo2-bar2", "spam", "other", false))
 				.thenReturn(EnvironmentControllerTests.this.environment);
 			this.mvc.perform(MockMvcRequestBuilders.get("/other/foo-bar-foo2-bar2-spam.yml"))
-				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN));
+				.andExpect(MockMvcResultMatchers.content().contentType("text/plain;charset=UTF-8"));
 		}
 
 		@Test
@@ -656,6 +735,63 @@ class EnvironmentControllerTests {
 
 		}
 
+		@Test
+		public void environmentNotModifiedWhenETagMatches() throws Exception {
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			MvcResult result = this.mvc.perform(MockMvcRequestBuilders.get("/foo/bar"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andReturn();
+			String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+			assertThat(etag).isNotEmpty();
+			this.mvc.perform(MockMvcRequestBuilders.get("/foo/bar").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(MockMvcResultMatchers.status().isNotModified())
+				.andExpect(MockMvcResultMatchers.content().string(""));
+		}
+
+		@Test
+		public void environmentModifiedWhenVersionChanges() throws Exception {
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			String etag = this.mvc.perform(MockMvcRequestBuilders.get("/foo/bar"))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+			EnvironmentControllerTests.this.environment.setVersion("v2");
+			this.mvc.perform(MockMvcRequestBuilders.get("/foo/bar").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		}
+
+		@Test
+		public void textRenderingsNotModifiedWhenETagMatches() throws Exception {
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			for (String path : new String[] { "/foo-bar.properties", "/foo-bar.yml", "/foo-bar.json" }) {
+				String etag = this.mvc.perform(MockMvcRequestBuilders.get(path))
+					.andExpect(MockMvcResultMatchers.status().isOk())
+					.andReturn()
+					.getResponse()
+					.getHeader(HttpHeaders.ETAG);
+				this.mvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(MockMvcResultMatchers.status().isNotModified());
+			}
+		}
+
+		@Test
+		public void eachRenderingHasItsOwnETag() throws Exception {
+			when(EnvironmentControllerTests.this.repository.findOne("foo", "bar", null, false))
+				.thenReturn(EnvironmentControllerTests.this.environment);
+			String yaml = this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.yml"))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+			String properties = this.mvc.perform(MockMvcRequestBuilders.get("/foo-bar.properties"))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+			assertThat(yaml).isNotEqualTo(properties);
+		}
+
 		@Test
 		public void handleEnvironmentException() throws Exception {
 			when(EnvironmentControllerTests.this.repository.findOne(eq("exception"), eq("bad_syntax.ext"), any(),
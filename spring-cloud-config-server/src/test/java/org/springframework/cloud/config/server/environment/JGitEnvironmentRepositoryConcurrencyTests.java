@@ -20,11 +20,15 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.jgit.api.CheckoutCommand;
@@ -60,6 +64,8 @@ import org.springframework.cloud.config.server.test.ConfigServerTestUtils;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -123,6 +129,106 @@ public class JGitEnvironmentRepositoryConcurrencyTests {
 		assertThat(environment.getLabel()).isEqualTo("master");
 	}
 
+	@Test
+	public void readsOfCheckedOutLabelDoNotTouchTheRepository() throws Exception {
+		String uri = ConfigServerTestUtils.prepareLocalRepo();
+		this.context = new SpringApplicationBuilder(TestConfiguration.class).web(WebApplicationType.NONE)
+			.properties("spring.cloud.config.server.git.uri:" + uri, "spring.cloud.config.server.git.refresh-rate:60")
+			.run();
+		final JGitEnvironmentRepository repository = this.context.getBean(JGitEnvironmentRepository.class);
+		String version = repository.findOne("bar", "staging", "master").getVersion();
+		final AtomicInteger opened = new AtomicInteger();
+		repository.setGitFactory(new JGitEnvironmentRepository.JGitFactory() {
+			@Override
+			public Git getGitByOpen(File file) throws IOException {
+				opened.incrementAndGet();
+				return super.getGitByOpen(file);
+			}
+		});
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<Environment>> tasks = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			tasks.add(threads.submit(() -> repository.findOne("bar", "staging", "master")));
+		}
+		for (Future<Environment> future : tasks) {
+			Environment environment = future.get();
+			assertThat(environment.getVersion()).isEqualTo(version);
+			assertThat(environment.getPropertySources()).hasSize(2);
+		}
+		threads.shutdown();
+		assertThat(opened.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void readsOfCheckedOutLabelRunInParallel() throws Exception {
+		String uri = ConfigServerTestUtils.prepareLocalRepo();
+		JGitEnvironmentProperties properties = new JGitEnvironmentProperties();
+		properties.setUri(uri);
+		properties.setBasedir(this.basedir);
+		properties.setRefreshRate(60);
+		final int threads = 4;
+		final AtomicBoolean reading = new AtomicBoolean();
+		final CountDownLatch inside = new CountDownLatch(threads);
+		final AtomicInteger overlapping = new AtomicInteger();
+		// every read waits until all threads are reading, which only happens if reads
+		// are not serialized, so that the throughput grows with the number of threads
+		final JGitEnvironmentRepository repository = new JGitEnvironmentRepository(new StandardEnvironment(),
+				properties, ObservationRegistry.NOOP) {
+			@Override
+			public ConfigurableEnvironment getEnvironment() {
+				if (reading.get()) {
+					inside.countDown();
+					try {
+						if (inside.await(5, TimeUnit.SECONDS)) {
+							overlapping.incrementAndGet();
+						}
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.getEnvironment();
+			}
+		};
+		String version = repository.findOne("bar", "staging", "master").getVersion();
+		reading.set(true);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Environment>> tasks = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			tasks.add(executor.submit(() -> repository.findOne("bar", "staging", "master")));
+		}
+		for (Future<Environment> future : tasks) {
+			assertThat(future.get().getVersion()).isEqualTo(version);
+		}
+		executor.shutdown();
+		assertThat(overlapping.get()).isEqualTo(threads);
+	}
+
+	@Test
+	public void concurrentReadsOfDifferentLabels() throws Exception {
+		String uri = ConfigServerTestUtils.prepareLocalRepo();
+		this.context = new SpringApplicationBuilder(TestConfiguration.class).web(WebApplicationType.NONE)
+			.properties("spring.cloud.config.server.git.uri:" + uri, "spring.cloud.config.server.git.refresh-rate:60")
+			.run();
+		final EnvironmentRepository repository = this.context.getBean(EnvironmentRepository.class);
+		final String[] labels = { "master", "raw" };
+		final String[] versions = { repository.findOne("bar", "staging", "master").getVersion(),
+				repository.findOne("bar", "staging", "raw").getVersion() };
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> tasks = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			final int index = i % labels.length;
+			tasks.add(threads.submit(() -> {
+				Environment environment = repository.findOne("bar", "staging", labels[index]);
+				return versions[index].equals(environment.getVersion());
+			}));
+		}
+		for (Future<Boolean> future : tasks) {
+			assertThat(future.get()).isTrue();
+		}
+		threads.shutdown();
+	}
+
 	/**
 	 * Simulates following actions in parallel: - Client tries to obtain configuration
 	 * with specified label - Spring Refresh Context Event occurs.
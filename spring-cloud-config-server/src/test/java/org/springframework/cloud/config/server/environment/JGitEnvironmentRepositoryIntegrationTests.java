@@ -27,6 +27,9 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import io.micrometer.observation.ObservationRegistry;
 import org.eclipse.jgit.api.CheckoutCommand;
@@ -560,6 +563,73 @@ public class JGitEnvironmentRepositoryIntegrationTests {
 		assertThat("bar").isEqualTo(fooProperty);
 	}
 
+	@Test
+	public void backgroundRefreshSwapsInNewCommit() throws Exception {
+		JGitConfigServerTestData testData = JGitConfigServerTestData
+			.prepareClonedGitRepository(TestConfiguration.class);
+		JGitEnvironmentRepository repository = testData.getRepository();
+		repository.setRefreshRate(3600);
+		repository.setRefreshInBackground(true);
+		repository.afterPropertiesSet();
+		try {
+			String startingRemoteVersion = getCommitID(testData.getServerGit().getGit(), "master");
+			Environment environment = repository.findOne("bar", "staging", "master");
+			assertThat(environment.getVersion()).isEqualTo(startingRemoteVersion);
+
+			// update the remote repo
+			FileOutputStream out = new FileOutputStream(
+					new File(testData.getServerGit().getGitWorkingDirectory(), "bar.properties"));
+			StreamUtils.copy("foo: barNewCommit", Charset.defaultCharset(), out);
+			testData.getServerGit().getGit().add().addFilepattern("bar.properties").call();
+			testData.getServerGit().getGit().commit().setMessage("Updated for background refresh").call();
+			String updatedRemoteVersion = getCommitID(testData.getServerGit().getGit(), "master");
+
+			// requests do not fetch themselves
+			environment = repository.findOne("bar", "staging", "master");
+			assertThat(environment.getVersion()).isEqualTo(startingRemoteVersion);
+
+			repository.refreshInBackground();
+			environment = repository.findOne("bar", "staging", "master");
+			assertThat(environment.getVersion()).isEqualTo(updatedRemoteVersion);
+			assertThat(ConfigServerTestUtils.getProperty(environment, "bar.properties", "foo"))
+				.isEqualTo("barNewCommit");
+			assertThat(repository.getLastFetchTime()).isPositive();
+			assertThat(repository.getFetchFailureCount()).isZero();
+		}
+		finally {
+			repository.destroy();
+		}
+	}
+
+	@Test
+	public void backgroundRefreshWaitsForRequestsRefreshingTheWorkingDirectory() throws Exception {
+		JGitConfigServerTestData testData = JGitConfigServerTestData
+			.prepareClonedGitRepository(TestConfiguration.class);
+		JGitEnvironmentRepository repository = testData.getRepository();
+		repository.setRefreshRate(3600);
+		repository.setRefreshInBackground(true);
+		repository.afterPropertiesSet();
+		try {
+			repository.findOne("bar", "staging", "master");
+			CompletableFuture<Void> refresh;
+			Lock writeLock = repository.getWorkingDirectoryLock().writeLock();
+			writeLock.lock();
+			try {
+				refresh = CompletableFuture.runAsync(repository::refreshInBackground);
+				Thread.sleep(200);
+				assertThat(refresh).isNotDone();
+			}
+			finally {
+				writeLock.unlock();
+			}
+			refresh.get(30, TimeUnit.SECONDS);
+			assertThat(repository.getLastFetchTime()).isPositive();
+		}
+		finally {
+			repository.destroy();
+		}
+	}
+
 	@Test
 	public void testUnknownLabelWithRemote() throws Exception {
 		assertThatExceptionOfType(NoSuchLabelException.class).isThrownBy(() -> {
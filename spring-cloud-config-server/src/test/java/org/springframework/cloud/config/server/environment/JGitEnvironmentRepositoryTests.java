@@ -109,6 +109,8 @@ public class JGitEnvironmentRepositoryTests {
 
 	private File basedir = new File("target/config");
 
+	private File snapshots = new File("target/config-snapshots");
+
 	private final ObjectId newObjectId = ObjectId.fromRaw(new int[] { 1, 2, 3, 4, 5 });
 
 	@BeforeAll
@@ -126,6 +128,9 @@ public class JGitEnvironmentRepositoryTests {
 		if (this.basedir.exists()) {
 			FileUtils.delete(this.basedir, FileUtils.RECURSIVE | FileUtils.RETRY);
 		}
+		if (this.snapshots.exists()) {
+			FileUtils.delete(this.snapshots, FileUtils.RECURSIVE | FileUtils.RETRY);
+		}
 	}
 
 	@Test
@@ -161,6 +166,53 @@ public class JGitEnvironmentRepositoryTests {
 		assertVersion(environment);
 	}
 
+	@Test
+	public void snapshotOfLabelIsServedWithoutCheckout() throws Exception {
+		this.repository.setBasedir(this.basedir);
+		this.repository.setServeFromSnapshots(true);
+		// the clone checks out the default branch of the remote (raw)
+		this.repository.findOne("bar", "staging", "raw");
+		ObjectId head;
+		String branch;
+		ObjectId master;
+		try (Git git = Git.open(this.basedir)) {
+			head = git.getRepository().resolve("HEAD");
+			branch = git.getRepository().getBranch();
+			master = git.getRepository().resolve("refs/remotes/origin/master");
+		}
+		assertThat(master).isNotEqualTo(head);
+
+		Environment environment = this.repository.findOne("bar", "staging", "master");
+		assertThat(environment.getPropertySources()).hasSize(2);
+		assertThat(environment.getPropertySources().get(0).getName())
+			.isEqualTo(this.repository.getUri() + "/bar.properties");
+		assertThat(environment.getVersion()).isEqualTo(master.getName());
+		try (Git git = Git.open(this.basedir)) {
+			assertThat(git.getRepository().resolve("HEAD")).isEqualTo(head);
+			assertThat(git.getRepository().getBranch()).isEqualTo(branch);
+		}
+
+		JGitEnvironmentRepository checkout = new JGitEnvironmentRepository(this.environment,
+				new JGitEnvironmentProperties(), ObservationRegistry.NOOP);
+		checkout.setUri(this.repository.getUri());
+		Environment checkedOut = checkout.findOne("bar", "staging", "master");
+		assertThat(environment.getVersion()).isEqualTo(checkedOut.getVersion());
+		assertThat(environment.getPropertySources().get(0).getSource())
+			.isEqualTo(checkedOut.getPropertySources().get(0).getSource());
+	}
+
+	@Test
+	public void snapshotsOfLeastRecentlyUsedLabelsAreDeleted() {
+		this.repository.setBasedir(this.basedir);
+		this.repository.setServeFromSnapshots(true);
+		this.repository.setSnapshotCacheSize(1);
+
+		this.repository.findOne("bar", "staging", "master");
+		Environment environment = this.repository.findOne("bar", "staging", "raw");
+
+		assertThat(this.snapshots.list()).containsExactly(environment.getVersion());
+	}
+
 	private void assertVersion(Environment environment) {
 		String version = environment.getVersion();
 		assertThat(version).as("version was null").isNotNull();
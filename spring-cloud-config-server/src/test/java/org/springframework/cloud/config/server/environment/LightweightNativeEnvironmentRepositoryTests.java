@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the {@link NativeEnvironmentRepositoryTests} scenarios with the lightweight loader
+ * and checks that both loaders produce the same environments.
+ */
+public class LightweightNativeEnvironmentRepositoryTests extends NativeEnvironmentRepositoryTests {
+
+	@Override
+	protected NativeEnvironmentProperties createProperties() {
+		NativeEnvironmentProperties properties = super.createProperties();
+		properties.setLightweightLoader(true);
+		return properties;
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|',
+			value = { "foo|development|master|", "foo|main|master|", "foo|development|master|classpath:/test",
+					"bar|development|master|classpath:/test", "baz|development|master|classpath:/test",
+					"foo|development|master|file:./src/test/resources/test",
+					"foo|development|master|src/test/resources/test",
+					"foo|development|master|classpath:/test/{profile}",
+					"foo|development,mysql|master|classpath:/test/{profile}",
+					"foo,bar|development|master|classpath:/test", "foo|default|master|classpath:/test/{application}",
+					"import|default|master|classpath:/test" })
+	public void loadersProduceSameEnvironment(String application, String profile, String label, String locations) {
+		assertSameEnvironment(application, profile, label, locations, false);
+		assertSameEnvironment(application, profile, label, locations, true);
+	}
+
+	private void assertSameEnvironment(String application, String profile, String label, String locations,
+			boolean includeOrigin) {
+		Environment expected = createRepository(false, locations).findOne(application, profile, label, includeOrigin);
+		Environment actual = createRepository(true, locations).findOne(application, profile, label, includeOrigin);
+		assertThat(actual.getPropertySources()).hasSameSizeAs(expected.getPropertySources());
+		for (int i = 0; i < expected.getPropertySources().size(); i++) {
+			assertThat(actual.getPropertySources().get(i).getName())
+				.isEqualTo(expected.getPropertySources().get(i).getName());
+			assertThat(actual.getPropertySources().get(i).getSource()).usingRecursiveComparison()
+				.isEqualTo(expected.getPropertySources().get(i).getSource());
+		}
+	}
+
+	private NativeEnvironmentRepository createRepository(boolean lightweightLoader, String locations) {
+		NativeEnvironmentProperties properties = new NativeEnvironmentProperties();
+		properties.setLightweightLoader(lightweightLoader);
+		NativeEnvironmentRepository repository = new NativeEnvironmentRepository(new StandardEnvironment(), properties,
+				ObservationRegistry.NOOP);
+		repository.setPropertyFileCache(null);
+		repository.setDefaultLabel(null);
+		if (locations != null) {
+			repository.setSearchLocations(locations);
+		}
+		return repository;
+	}
+
+}
@@ -16,8 +16,15 @@
 
 package org.springframework.cloud.config.server.environment;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import io.micrometer.observation.ObservationRegistry;
 import org.eclipse.jgit.junit.MockSystemReader;
@@ -115,6 +122,83 @@ public class MultipleJGitEnvironmentApplicationPlaceholderRepositoryTests {
 		assertVersion(environment);
 	}
 
+	@Test
+	public void leastRecentlyUsedPlaceholderRepositoryIsEvicted() {
+		this.repository.setPlaceholderCacheSize(1);
+		JGitEnvironmentRepository templates = this.repository.getRepos().get("templates");
+		JGitEnvironmentRepository first = this.repository.getRepository(templates, "test1-config-repo", "staging",
+				"master");
+		assertThat(first.getBasedir()).isDirectory();
+
+		Environment environment = this.repository.findOne("test2-config-repo", "staging", "master");
+		assertThat(environment.getPropertySources()).hasSize(1);
+		assertThat(this.repository.getPlaceholderCount()).isEqualTo(1);
+		assertThat(this.repository.getPlaceholderEvictionCount()).isEqualTo(1);
+		assertThat(first.getBasedir()).doesNotExist();
+		assertThat(this.repository.getRepository(templates, "test1-config-repo", "staging", "master"))
+			.isNotSameAs(first);
+	}
+
+	@Test
+	public void placeholderRepositoryEvictedWhileInUseIsDeletedOnceReleased() {
+		this.repository.setPlaceholderCacheSize(1);
+		JGitEnvironmentRepository templates = this.repository.getRepos().get("templates");
+		File basedir = this.repository.withLocations("test1-config-repo", "staging", "master", locations -> {
+			File inUse = this.repository.getRepository(templates, "test1-config-repo", "staging", "master")
+				.getBasedir();
+			this.repository.findOne("test2-config-repo", "staging", "master");
+			assertThat(this.repository.getPlaceholderEvictionCount()).isEqualTo(1);
+			assertThat(inUse).isDirectory();
+			return inUse;
+		});
+		assertThat(basedir).doesNotExist();
+		assertThat(this.repository.getPlaceholderCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void idlePlaceholderRepositoryIsEvictedWithoutRequests() throws Exception {
+		this.repository.setPlaceholderIdleTimeout(1);
+		this.repository.afterPropertiesSet();
+		try {
+			JGitEnvironmentRepository templates = this.repository.getRepos().get("templates");
+			File basedir = this.repository.getRepository(templates, "test1-config-repo", "staging", "master")
+				.getBasedir();
+			assertThat(basedir).isDirectory();
+
+			// evicted by the timer, no request comes in
+			long deadline = System.currentTimeMillis() + 10000;
+			while (basedir.exists() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+			}
+			assertThat(basedir).doesNotExist();
+			assertThat(this.repository.getPlaceholderCount()).isZero();
+			assertThat(this.repository.getPlaceholderEvictionCount()).isEqualTo(1);
+		}
+		finally {
+			this.repository.destroy();
+		}
+	}
+
+	@Test
+	public void concurrentRequestsShareThePlaceholderRepository() throws Exception {
+		JGitEnvironmentRepository templates = this.repository.getRepos().get("templates");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<JGitEnvironmentRepository>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(
+						() -> this.repository.getRepository(templates, "test1-config-repo", "staging", "master")));
+			}
+			for (Future<JGitEnvironmentRepository> result : results) {
+				assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(results.get(0).get());
+			}
+			assertThat(this.repository.getPlaceholderCount()).isEqualTo(1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	@Disabled("not supported yet (placeholders in search paths with lists)")
 	public void profilesInSearchPaths() {
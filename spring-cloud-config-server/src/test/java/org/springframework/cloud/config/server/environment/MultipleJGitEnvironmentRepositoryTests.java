@@ -33,6 +33,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository.PatternMatchingJGitEnvironmentRepository;
 import org.springframework.cloud.config.server.test.ConfigServerTestUtils;
 import org.springframework.core.env.StandardEnvironment;
@@ -167,6 +168,24 @@ public class MultipleJGitEnvironmentRepositoryTests {
 		assertVersion(environment);
 	}
 
+	@Test
+	public void reposAndPatternsChangedAfterInitializationAreMatched() throws Exception {
+		this.repository.afterPropertiesSet();
+		PatternMatchingJGitEnvironmentRepository test1 = this.repository.getRepos().get("test1");
+		String test1Uri = test1.getUri();
+		assertThat(this.repository.findOne("test1-svc", "staging", "master").getPropertySources().get(0).getName())
+			.isEqualTo(test1Uri + "/test1-svc.properties");
+
+		test1.setPattern(new String[] { "*other*" });
+		assertThat(this.repository.findOne("test1-svc", "staging", "master").getPropertySources())
+			.extracting(PropertySource::getName)
+			.noneMatch(name -> name.startsWith(test1Uri));
+
+		this.repository.getRepos().put("test1-again", createRepository("test1-again", "*test1*", test1Uri));
+		assertThat(this.repository.findOne("test1-svc", "staging", "master").getPropertySources().get(0).getName())
+			.isEqualTo(test1Uri + "/test1-svc.properties");
+	}
+
 	@Test
 	public void defaultLabel() {
 		this.repository.setDefaultLabel("raw");
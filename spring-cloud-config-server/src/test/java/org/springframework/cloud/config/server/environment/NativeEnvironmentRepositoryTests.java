@@ -50,13 +50,17 @@ public class NativeEnvironmentRepositoryTests {
 			.properties("logging.level.org.springframework.boot.context.config=TRACE")
 			.web(WebApplicationType.NONE)
 			.run();
-		this.repository = new NativeEnvironmentRepository(context.getEnvironment(), new NativeEnvironmentProperties(),
+		this.repository = new NativeEnvironmentRepository(context.getEnvironment(), createProperties(),
 				ObservationRegistry.NOOP);
 		this.repository.setVersion("myversion");
 		this.repository.setDefaultLabel(null);
 		context.close();
 	}
 
+	protected NativeEnvironmentProperties createProperties() {
+		return new NativeEnvironmentProperties();
+	}
+
 	@Test
 	public void emptySearchLocations() {
 		this.repository.setSearchLocations((String[]) null);
@@ -90,6 +94,24 @@ public class NativeEnvironmentRepositoryTests {
 			.isNotEqualTo(environment.getPropertySources().get(1).getName());
 	}
 
+	@Test
+	public void parsedFilesAreSharedBetweenRequests() {
+		this.repository.setSearchLocations("classpath:/test");
+		this.repository.setLightweightLoader(true);
+		Environment first = this.repository.findOne("foo", "development", "master");
+		long parsed = this.repository.getPropertyFileCache().getParseCount();
+		Environment second = this.repository.findOne("foo", "development", "master");
+		assertThat(parsed).isGreaterThan(0);
+		assertThat(this.repository.getPropertyFileCache().getParseCount()).isEqualTo(parsed);
+		assertThat(second.getPropertySources()).hasSameSizeAs(first.getPropertySources());
+		for (int i = 0; i < first.getPropertySources().size(); i++) {
+			assertThat(second.getPropertySources().get(i).getName())
+				.isEqualTo(first.getPropertySources().get(i).getName());
+			assertThat(second.getPropertySources().get(i).getSource())
+				.isEqualTo(first.getPropertySources().get(i).getSource());
+		}
+	}
+
 	@Test
 	public void prefixedYaml() {
 		this.repository.setSearchLocations("classpath:/test");
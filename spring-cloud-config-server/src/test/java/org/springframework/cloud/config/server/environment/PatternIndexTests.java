@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.PatternMatchUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PatternIndexTests {
+
+	@Test
+	public void matchesLikeSimpleMatch() {
+		PatternIndex<String> index = new PatternIndex<>();
+		index.add("exact", new String[] { "foo/dev" });
+		index.add("prefix", new String[] { "foo*" });
+		index.add("suffix", new String[] { "*/prod" });
+		index.add("infix", new String[] { "f*dev" });
+		index.add("any", new String[] { "*" });
+		index.add("several", new String[] { "*o*/d*" });
+		index.add("none", new String[] { null });
+		index.add("empty", new String[0]);
+
+		assertThat(index.getMatches(Collections.singletonList("foo/dev"))).containsExactly("exact", "prefix", "infix",
+				"any", "several");
+		assertThat(index.getMatches(Collections.singletonList("bar/prod"))).containsExactly("suffix", "any");
+		assertThat(index.getMatches(Collections.singletonList("fdev"))).containsExactly("infix", "any");
+		assertThat(index.getMatches(Collections.singletonList("fev"))).containsExactly("any");
+		assertThat(index.getMatches(Arrays.asList("foo/prod", "bar/dev"))).containsExactly("prefix", "suffix", "any");
+		assertThat(index.getMatches(Collections.emptyList())).isEmpty();
+	}
+
+	@Test
+	public void candidatesAreAlwaysReturned() {
+		PatternIndex<String> index = new PatternIndex<>();
+		index.add("foo", new String[] { "foo" });
+		index.addCandidate("custom");
+		index.add("bar", new String[] { "bar" });
+
+		assertThat(index.getMatches(Collections.singletonList("bar"))).containsExactly("custom", "bar");
+	}
+
+	@Test
+	public void matchesRandomPatternsLikeLinearScan() {
+		Random random = new Random(42);
+		List<String[]> patterns = new ArrayList<>();
+		PatternIndex<Integer> index = new PatternIndex<>();
+		for (int i = 0; i < 400; i++) {
+			String[] values = new String[1 + random.nextInt(3)];
+			for (int j = 0; j < values.length; j++) {
+				values[j] = randomString(random, true);
+			}
+			patterns.add(values);
+			index.add(i, values);
+		}
+		for (int i = 0; i < 2000; i++) {
+			String string = randomString(random, false);
+			List<Integer> expected = new ArrayList<>();
+			for (int j = 0; j < patterns.size(); j++) {
+				if (PatternMatchUtils.simpleMatch(patterns.get(j), string)) {
+					expected.add(j);
+				}
+			}
+			assertThat(index.getMatches(Collections.singletonList(string))).as(string).isEqualTo(expected);
+		}
+	}
+
+	private static String randomString(Random random, boolean wildcards) {
+		String alphabet = wildcards ? "ab/*" : "ab/";
+		StringBuilder builder = new StringBuilder();
+		int length = random.nextInt(6);
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return builder.toString();
+	}
+
+}
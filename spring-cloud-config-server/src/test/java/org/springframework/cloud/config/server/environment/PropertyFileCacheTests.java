@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PropertyFileCacheTests {
+
+	@TempDir
+	File directory;
+
+	private final AtomicInteger parsed = new AtomicInteger();
+
+	private final PropertiesPropertySourceLoader loader = new PropertiesPropertySourceLoader() {
+		@Override
+		public List<PropertySource<?>> load(String name, Resource resource) throws IOException {
+			PropertyFileCacheTests.this.parsed.incrementAndGet();
+			return super.load(name, resource);
+		}
+	};
+
+	@Test
+	public void unchangedFileIsParsedOnce() throws IOException {
+		PropertyFileCache cache = new PropertyFileCache();
+		File file = write("foo=bar");
+
+		cache.load("test", new FileSystemResource(file), this.loader);
+		List<PropertySource<?>> propertySources = cache.load("test", new FileSystemResource(file), this.loader);
+
+		assertThat(this.parsed.get()).isEqualTo(1);
+		assertThat(propertySources.get(0).getProperty("foo")).hasToString("bar");
+	}
+
+	@Test
+	public void changedFileIsParsedAgain() throws IOException {
+		PropertyFileCache cache = new PropertyFileCache();
+		File file = write("foo=bar");
+		cache.load("test", new FileSystemResource(file), this.loader);
+
+		write("foo=changed");
+		List<PropertySource<?>> propertySources = cache.load("test", new FileSystemResource(file), this.loader);
+
+		assertThat(this.parsed.get()).isEqualTo(2);
+		assertThat(propertySources.get(0).getProperty("foo")).hasToString("changed");
+	}
+
+	@Test
+	public void nameIsPartOfTheKey() throws IOException {
+		PropertyFileCache cache = new PropertyFileCache();
+		File file = write("foo=bar");
+
+		cache.load("one", new FileSystemResource(file), this.loader);
+		cache.load("two", new FileSystemResource(file), this.loader);
+
+		assertThat(this.parsed.get()).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void resourcesOutsideTheFileSystemAreNotCached() throws IOException {
+		PropertyFileCache cache = new PropertyFileCache();
+		Resource resource = new ByteArrayResource("foo=bar".getBytes(StandardCharsets.UTF_8));
+
+		cache.load("test", resource, this.loader);
+		cache.load("test", resource, this.loader);
+
+		assertThat(this.parsed.get()).isEqualTo(2);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void leastRecentlyUsedFileIsEvictedWhenFull() throws IOException {
+		PropertyFileCache cache = new PropertyFileCache(1);
+		File file = write("foo=bar");
+
+		cache.load("one", new FileSystemResource(file), this.loader);
+		cache.load("two", new FileSystemResource(file), this.loader);
+		cache.load("one", new FileSystemResource(file), this.loader);
+
+		assertThat(this.parsed.get()).isEqualTo(3);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	private File write(String content) throws IOException {
+		File file = new File(this.directory, "application.properties");
+		Files.writeString(file.toPath(), content);
+		return file;
+	}
+
+}
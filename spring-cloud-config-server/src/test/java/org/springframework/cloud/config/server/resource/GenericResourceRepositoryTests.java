@@ -18,6 +18,17 @@ package org.springframework.cloud.config.server.resource;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.micrometer.observation.ObservationRegistry;
 import org.assertj.core.api.Assertions;
@@ -25,6 +36,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import software.amazon.awssdk.services.s3.S3Client;
 
 import org.springframework.boot.WebApplicationType;
@@ -37,7 +49,10 @@ import org.springframework.cloud.config.server.environment.AwsS3EnvironmentRepos
 import org.springframework.cloud.config.server.environment.NativeEnvironmentProperties;
 import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.NativeEnvironmentRepositoryTests;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
@@ -148,6 +163,156 @@ public class GenericResourceRepositoryTests {
 		Assertions.assertThat(capturedOutput.getAll()).contains("Location contains \"..\"");
 	}
 
+	@Test
+	public void reverseLocationOrderDoesNotChangeLocationsOfLocator() throws IOException {
+		String[] locations = { "classpath:/test/", "classpath:/" };
+		SearchPathLocator locator = (application, profile, label) -> new SearchPathLocator.Locations(application,
+				profile, label, null, locations);
+		ConfigServerProperties properties = new ConfigServerProperties();
+		properties.setReverseLocationOrder(true);
+		GenericResourceRepository repository = new GenericResourceRepository(locator, properties);
+		repository.setResourceLoader(new DefaultResourceLoader());
+		for (int i = 0; i < 2; i++) {
+			Resource resource = repository.findOne("blah", "default", "master", "foo.properties");
+			assertThat(resource.getContentAsString(StandardCharsets.UTF_8))
+				.isEqualTo(new ClassPathResource("foo.properties").getContentAsString(StandardCharsets.UTF_8));
+		}
+		assertThat(locations).containsExactly("classpath:/test/", "classpath:/");
+	}
+
+	@Test
+	public void fileResourceDescribesFile() throws IOException {
+		Resource resource = this.repository.findOne("blah", "default", "master", "foo.properties");
+		Resource file = new ClassPathResource("foo.properties");
+		assertThat(resource.getFilename()).isEqualTo("foo.properties");
+		assertThat(resource.getFile()).isEqualTo(file.getFile());
+		assertThat(resource.lastModified()).isEqualTo(file.lastModified());
+		assertThat(resource.getContentAsByteArray()).isEqualTo(file.getContentAsByteArray());
+	}
+
+	@Test
+	public void fileOfLocatorChangingFilesIsReadWhileLocated(@TempDir Path directory) throws IOException {
+		Path file = Files.writeString(directory.resolve("foo.txt"), "foo");
+		String location = directory.toUri().toString();
+		SearchPathLocator locator = new SearchPathLocator() {
+			@Override
+			public Locations getLocations(String application, String profile, String label) {
+				return new Locations(application, profile, label, null, new String[] { location });
+			}
+
+			@Override
+			public boolean changesFiles() {
+				return true;
+			}
+		};
+		GenericResourceRepository repository = new GenericResourceRepository(locator);
+		repository.setResourceLoader(new DefaultResourceLoader());
+		Resource resource = repository.findOne("blah", "default", "master", "foo.txt");
+		Files.delete(file);
+		assertThat(resource.getFilename()).isEqualTo("foo.txt");
+		assertThat(resource.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("foo");
+	}
+
+	@Test
+	public void cachedLookupsUntilVersionChanges() {
+		AtomicReference<String> version = new AtomicReference<>("1");
+		SearchPathLocator locator = (application, profile, label) -> new SearchPathLocator.Locations(application,
+				profile, label, version.get(), new String[] { "classpath:/test/", "classpath:/" });
+		AtomicInteger lookups = new AtomicInteger();
+		GenericResourceRepository repository = new GenericResourceRepository(locator);
+		repository.setCacheSize(10);
+		repository.setResourceLoader(new DefaultResourceLoader() {
+			@Override
+			public Resource getResource(String location) {
+				lookups.incrementAndGet();
+				return super.getResource(location);
+			}
+		});
+
+		Resource resource = repository.findOne("blah", "default", "master", "foo.properties");
+		assertThat(lookups.get()).isEqualTo(2);
+		assertThat(repository.findOne("blah", "default", "master", "foo.properties")).isSameAs(resource);
+		assertThat(lookups.get()).isEqualTo(2);
+		repository.findOne("blah", "development", "master", "foo.properties");
+		assertThat(lookups.get()).isEqualTo(4);
+
+		version.set("2");
+		assertThat(repository.findOne("blah", "default", "master", "foo.properties")).isNotSameAs(resource);
+		assertThat(lookups.get()).isEqualTo(6);
+	}
+
+	@Test
+	public void cachedFileContentIsBoundedBySize(@TempDir Path directory) throws IOException {
+		Files.writeString(directory.resolve("foo.txt"), "foo");
+		Files.writeString(directory.resolve("bar.txt"), "bar");
+		Files.writeString(directory.resolve("large.txt"), "large");
+		String location = directory.toUri().toString();
+		SearchPathLocator locator = new SearchPathLocator() {
+			@Override
+			public Locations getLocations(String application, String profile, String label) {
+				return new Locations(application, profile, label, "1", new String[] { location });
+			}
+
+			@Override
+			public boolean changesFiles() {
+				return true;
+			}
+		};
+		GenericResourceRepository repository = new GenericResourceRepository(locator);
+		repository.setCacheSize(10);
+		repository.setCacheMaxBytes(4);
+		repository.setResourceLoader(new DefaultResourceLoader());
+
+		Resource foo = repository.findOne("blah", "default", "master", "foo.txt");
+		assertThat(repository.findOne("blah", "default", "master", "foo.txt")).isSameAs(foo);
+		Resource large = repository.findOne("blah", "default", "master", "large.txt");
+		assertThat(repository.findOne("blah", "default", "master", "large.txt")).isNotSameAs(large);
+		assertThat(repository.findOne("blah", "default", "master", "foo.txt")).isSameAs(foo);
+
+		Resource bar = repository.findOne("blah", "default", "master", "bar.txt");
+		assertThat(repository.findOne("blah", "default", "master", "bar.txt")).isSameAs(bar);
+		assertThat(repository.findOne("blah", "default", "master", "foo.txt")).isNotSameAs(foo);
+	}
+
+	@Test
+	public void lookupsWithoutVersionAreNotCached() {
+		AtomicInteger lookups = new AtomicInteger();
+		ConfigServerProperties properties = new ConfigServerProperties();
+		properties.getResourceCache().setEnabled(true);
+		GenericResourceRepository repository = new GenericResourceRepository(this.nativeRepository, properties);
+		repository.setResourceLoader(new DefaultResourceLoader() {
+			@Override
+			public Resource getResource(String location) {
+				lookups.incrementAndGet();
+				return super.getResource(location);
+			}
+		});
+
+		repository.findOne("blah", "default", "master", "foo.properties");
+		int count = lookups.get();
+		repository.findOne("blah", "default", "master", "foo.properties");
+		assertThat(lookups.get()).isEqualTo(2 * count);
+	}
+
+	@Test
+	public void concurrentLookups() throws Exception {
+		byte[] expected = new ClassPathResource("foo.properties").getContentAsByteArray();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<byte[]>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				results.add(executor.submit(() -> this.repository.findOne("blah", "default", "master", "foo.properties")
+					.getContentAsByteArray()));
+			}
+			for (Future<byte[]> result : results) {
+				assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(expected);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	/**
 	 * This test is mocking what happens when using Spring Cloud AWS ProtocolResolver to
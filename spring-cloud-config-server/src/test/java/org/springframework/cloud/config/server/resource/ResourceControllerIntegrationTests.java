@@ -50,6 +50,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
@@ -158,7 +159,6 @@ public class ResourceControllerIntegrationTests {
 
 	@Test
 	public void binaryResourceNoLabel() throws Exception {
-		when(this.repository.findOne("foo", "default", null)).thenReturn(new Environment("foo", "default", "master"));
 		when(this.resources.findOne("foo", "default", null, "foo.txt"))
 			.thenReturn(new ClassPathResource("resource-controller/foo.txt"));
 		this.mvc
@@ -166,10 +166,85 @@ public class ResourceControllerIntegrationTests {
 				.param("useDefaultLabel", "")
 				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE))
 			.andExpect(MockMvcResultMatchers.status().isOk());
-		verify(this.repository).findOne("foo", "default", null);
+		verifyNoInteractions(this.repository);
 		verify(this.resources).findOne("foo", "default", null, "foo.txt");
 	}
 
+	@Test
+	public void resourceWithoutPlaceholderResolution() throws Exception {
+		when(this.resources.findOne("foo", "default", "master", "foo.txt"))
+			.thenReturn(new ClassPathResource("resource-controller/foo.txt"));
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt").param("resolvePlaceholders", "false"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("hello"));
+		verifyNoInteractions(this.repository);
+		verify(this.resources).findOne("foo", "default", "master", "foo.txt");
+	}
+
+	@Test
+	public void binaryResourceRange() throws Exception {
+		when(this.resources.findOne("foo", "default", "master", "foo.txt"))
+			.thenReturn(new ClassPathResource("resource-controller/foo.txt"));
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt")
+				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+				.header(HttpHeaders.RANGE, "bytes=1-3"))
+			.andExpect(MockMvcResultMatchers.status().isPartialContent())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/5"))
+			.andExpect(MockMvcResultMatchers.content().string("ell"));
+	}
+
+	@Test
+	public void binaryResourceUnsatisfiableRange() throws Exception {
+		when(this.resources.findOne("foo", "default", "master", "foo.txt"))
+			.thenReturn(new ClassPathResource("resource-controller/foo.txt"));
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt")
+				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+				.header(HttpHeaders.RANGE, "bytes=10-20"))
+			.andExpect(MockMvcResultMatchers.status().isRequestedRangeNotSatisfiable());
+	}
+
+	@Test
+	public void binaryResourceIfRangeMatches() throws Exception {
+		ClassPathResource resource = new ClassPathResource("resource-controller/foo.txt");
+		when(this.resources.findOne("foo", "default", "master", "foo.txt")).thenReturn(resource);
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt")
+				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+				.header(HttpHeaders.RANGE, "bytes=2-")
+				.header(HttpHeaders.IF_RANGE, formatDate(resource.lastModified())))
+			.andExpect(MockMvcResultMatchers.status().isPartialContent())
+			.andExpect(MockMvcResultMatchers.content().string("llo"));
+	}
+
+	@Test
+	public void binaryResourceIfRangeDoesNotMatch() throws Exception {
+		ClassPathResource resource = new ClassPathResource("resource-controller/foo.txt");
+		when(this.resources.findOne("foo", "default", "master", "foo.txt")).thenReturn(resource);
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt")
+				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+				.header(HttpHeaders.RANGE, "bytes=2-")
+				.header(HttpHeaders.IF_RANGE, formatDate(resource.lastModified() - 60000)))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("hello"));
+		this.mvc
+			.perform(MockMvcRequestBuilders.get("/foo/default/master/foo.txt")
+				.header(HttpHeaders.ACCEPT, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+				.header(HttpHeaders.RANGE, "bytes=2-")
+				.header(HttpHeaders.IF_RANGE, "\"etag\""))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("hello"));
+	}
+
+	private String formatDate(long date) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setDate(HttpHeaders.IF_RANGE, date);
+		return headers.getFirst(HttpHeaders.IF_RANGE);
+	}
+
 	@Test
 	public void resourceWithMissingLabel() throws Exception {
 		when(this.resources.findOne("foo", "default", "missing", "foo.txt"))
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.config.server.resource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import io.micrometer.observation.ObservationRegistry;
@@ -33,6 +34,7 @@ import org.springframework.cloud.config.server.environment.NativeEnvironmentProp
 import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.NativeEnvironmentRepositoryTests;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.ServletWebRequest;
@@ -304,8 +306,8 @@ public class ResourceControllerTests {
 		MockHttpServletRequest request = new MockHttpServletRequest();
 		ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
 		request.setRequestURI("/foo/bar/dev/" + "spam/foo.txt");
-		byte[] resource = this.controller.binary("foo", "bar", "dev", webRequest);
-		assertThat(new String(resource)).isEqualToIgnoringNewLines("foo: dev_bar/spam");
+		Resource resource = this.controller.binary("foo", "bar", "dev", webRequest).getBody();
+		assertThat(resource.getContentAsString(StandardCharsets.UTF_8)).isEqualToIgnoringNewLines("foo: dev_bar/spam");
 	}
 
 	private String replaceNewLines(String text) {
@@ -318,8 +320,8 @@ public class ResourceControllerTests {
 		MockHttpServletRequest request = new MockHttpServletRequest();
 		ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
 		request.setRequestURI("/dev/spam/bar/" + "foo.txt");
-		byte[] resource = this.controller.binary("dev/spam", "bar", null, webRequest);
-		assertThat(new String(resource)).isEqualToIgnoringNewLines("foo: dev_bar/spam");
+		Resource resource = this.controller.binary("dev/spam", "bar", null, webRequest).getBody();
+		assertThat(resource.getContentAsString(StandardCharsets.UTF_8)).isEqualToIgnoringNewLines("foo: dev_bar/spam");
 	}
 
 	@Test
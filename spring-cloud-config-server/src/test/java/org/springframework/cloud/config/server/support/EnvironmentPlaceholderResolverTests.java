@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.server.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.environment.PropertyValueDescriptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class EnvironmentPlaceholderResolverTests {
+
+	private final Environment environment = new Environment("foo", "default");
+
+	@Test
+	public void firstPropertySourceWins() {
+		source("one", "foo", "one");
+		source("two", "foo", "two");
+		assertThat(resolver().resolvePlaceholders("${foo}")).isEqualTo("one");
+	}
+
+	@Test
+	public void nestedPlaceholdersAreResolved() {
+		source("one", "foo", "${bar}-${baz}", "bar", "a", "baz", "${bar}b", "key.a", "value");
+		EnvironmentPlaceholderResolver resolver = resolver();
+		assertThat(resolver.resolvePlaceholders("x ${foo} y")).isEqualTo("x a-ab y");
+		assertThat(resolver.resolvePlaceholders("${key.${bar}}")).isEqualTo("value");
+	}
+
+	@Test
+	public void defaultValuesAreUsedForMissingProperties() {
+		source("one", "bar", "b");
+		EnvironmentPlaceholderResolver resolver = resolver();
+		assertThat(resolver.resolvePlaceholders("${foo:spam}")).isEqualTo("spam");
+		assertThat(resolver.resolvePlaceholders("${foo:${bar}}")).isEqualTo("b");
+		assertThat(resolver.resolvePlaceholders("${foo:http://host:8080}")).isEqualTo("http://host:8080");
+		assertThat(resolver.resolvePlaceholders("${foo:}")).isEmpty();
+	}
+
+	@Test
+	public void unresolvablePlaceholdersAreLeftAsTheyAre() {
+		source("one", "bar", "b");
+		EnvironmentPlaceholderResolver resolver = resolver();
+		assertThat(resolver.resolvePlaceholders("${foo} ${bar}")).isEqualTo("${foo} b");
+		assertThat(resolver.resolvePlaceholders("${bar")).isEqualTo("${bar");
+	}
+
+	@Test
+	public void escapedPlaceholdersAreNotResolved() {
+		source("one", "foo", "bar");
+		EnvironmentPlaceholderResolver resolver = resolver();
+		assertThat(resolver.resolvePlaceholders("\\${foo}")).isEqualTo("${foo}");
+		// JSON generated from jackson will be double escaped
+		assertThat(resolver.resolvePlaceholders("\\\\${foo} ${foo}")).isEqualTo("${foo} bar");
+	}
+
+	@Test
+	public void nonStringValuesAreConverted() {
+		source("one", "port", 8080, "origin", new PropertyValueDescriptor("value", "file:a.yml:1:1"));
+		EnvironmentPlaceholderResolver resolver = resolver();
+		assertThat(resolver.resolvePlaceholders("${port}")).isEqualTo("8080");
+		assertThat(resolver.resolvePlaceholders("${origin}")).isEqualTo("value");
+	}
+
+	@Test
+	public void circularReferencesAreRejected() {
+		source("one", "foo", "${bar}", "bar", "${foo}");
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver().resolvePlaceholders("${foo}"))
+			.withMessageContaining("Circular placeholder reference");
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void resolvesLikeStandardEnvironment() {
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (int i = 0; i < 2000; i++) {
+			values.put("key" + i, (i % 3 == 0) ? "${key" + (i + 1) + "}/" + i : "value" + i);
+		}
+		this.environment.add(new PropertySource("one", values));
+		this.environment.add(new PropertySource("two", Map.of("key1", "hidden", "other", "${key0:none}")));
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2000; i += 7) {
+			text.append("a${key").append(i).append("} ${missing").append(i).append(":d").append(i).append("}\n");
+		}
+		text.append("${other} ${unknown} \\${key0}");
+		assertThat(resolver().resolvePlaceholders(text.toString())).isEqualTo(EnvironmentPropertySource
+			.resolvePlaceholders(EnvironmentPropertySource.prepareEnvironment(this.environment), text.toString()));
+	}
+
+	private void source(String name, Object... keysAndValues) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		this.environment.add(new PropertySource(name, map));
+	}
+
+	private EnvironmentPlaceholderResolver resolver() {
+		return new EnvironmentPlaceholderResolver(this.environment);
+	}
+
+}